@@ -0,0 +1,70 @@
+package juno.bench;
+
+import juno.serial.PipeTransport;
+import juno.serial.SerialBench;
+import juno.serial.SerialLineReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes written into a pipe until {@link SerialLineReader} hands out the decoded line:
+ * bulk read, UTF-8 decoding, line splitting and the queue hand-off.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineDecodeBenchmark {
+
+    @Param({"8", "64", "512", "4096"})
+    int size;
+
+    // "ascii", or "utf8" with two- and three-byte characters
+    @Param({"ascii", "utf8"})
+    String content;
+
+    private PipeTransport.Pair pair;
+    private SerialLineReader reader;
+    private byte[] framed;
+
+    @Setup
+    public void setup() {
+        pair = PipeTransport.pair();
+        reader = new SerialLineReader(pair.host().input(), "bench", 1024);
+        String message = SerialBench.message(0, size);
+        if (content.equals("utf8")) {
+            StringBuilder sb = new StringBuilder();
+            while (sb.toString().getBytes(StandardCharsets.UTF_8).length + 5 <= size) sb.append("ü€");
+            message = sb.isEmpty() ? message : sb.toString();
+        }
+        framed = (message + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        reader.close();
+        pair.host().close();
+    }
+
+    @Benchmark
+    public String decodeLine() throws IOException, InterruptedException {
+        pair.device().output().write(framed);
+        return reader.readLine();
+    }
+}
@@ -0,0 +1,54 @@
+package juno.bench;
+
+import juno.serial.FirmwareEmulator;
+import juno.serial.JunoSerial;
+import juno.serial.SerialBench;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end request/response through {@link JunoSerial} and the {@link FirmwareEmulator}
+ * over an in-memory pipe: the workload of {@code juno bench serial}, without the UART.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+
+    @Param({"8", "64", "512", "4096"})
+    int size;
+
+    private JunoSerial serial;
+    private final SerialBench bench = new SerialBench();
+
+    @Setup
+    public void setup() {
+        serial = JunoSerial.connectAndHandshake(FirmwareEmulator.startOnPipe());
+        if (serial == null) throw new IllegalStateException("Emulator handshake failed");
+    }
+
+    @TearDown
+    public void tearDown() {
+        serial.disconnect();
+    }
+
+    @Benchmark
+    public long roundTrip() {
+        return bench.roundTrip(serial, size);
+    }
+}
@@ -0,0 +1,68 @@
+package juno.bench;
+
+import juno.serial.JunoSerial;
+import juno.serial.PipeTransport;
+import juno.serial.SerialBench;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JunoSerial#send}: UTF-8 encoding, newline framing and the write, with the
+ * device end drained as fast as possible.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendFramingBenchmark {
+
+    @Param({"8", "64", "512", "4096"})
+    int size;
+
+    private PipeTransport.Pair pair;
+    private JunoSerial serial;
+    private String message;
+
+    @Setup
+    public void setup() {
+        pair = PipeTransport.pair();
+        Thread.ofPlatform().daemon().start(() -> {
+            byte[] sink = new byte[64 * 1024];
+            InputStream in = pair.device().input();
+            try {
+                while (in.read(sink) >= 0) {
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        serial = new JunoSerial();
+        serial.connect(pair.host());
+        message = SerialBench.message(0, size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serial.disconnect();
+    }
+
+    @Benchmark
+    public void send() {
+        serial.send(message);
+    }
+}
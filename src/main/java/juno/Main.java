@@ -1,34 +1,107 @@
 package juno;
 
-import juno.builder.JunoBatchBuilder;
+import juno.config.ConfigurationException;
+import juno.config.IdfInstallIndex;
 import juno.config.JunoConfig;
+import juno.config.JunoDetector;
+import juno.config.JunoPaths;
+import juno.config.ToolchainEnvironment;
 import juno.flasher.JunoFlasher;
+import juno.jfr.FlightRecording;
+import juno.metrics.MetricsLog;
+import juno.metrics.PhaseTimer;
 import juno.pbuilder.JunoProjectCreator;
 import juno.serial.JunoSerial;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class Main {
 
     public static void main(String[] args) throws IOException, InterruptedException {
+        try {
+            run(args);
+        } catch (ConfigurationException e) {
+            System.exit(1); // already reported
+        }
+    }
+
+    @SuppressWarnings("try") // PhaseTimer.Phase resources are only closed, never referenced
+    private static void run(String[] args) throws IOException, InterruptedException {
+        boolean forceBuild = Arrays.asList(args).contains("--force-build");
+        FlightRecording.startIfRequested(args);
+
+        // Phase timings go to .juno/metrics.log, see `juno stats`
+        PhaseTimer timer = new PhaseTimer();
+        try (PhaseTimer.Phase ignored = timer.phase("detect")) {
+            JunoConfig.load();
+        }
+
+        if (Arrays.asList(args).contains("--all-ports")) {
+            // Build once and flash every connected board; no terminal for a rack of boards
+            List<String> ports = JunoDetector.detectEsp32Ports();
+            if (ports.isEmpty()) {
+                System.err.println("❌ No serial port detected! Please connect your ESP32 and try again.");
+                System.exit(1);
+            }
+            File projectDir = JunoProjectCreator.createProject();
+            List<JunoFlasher.FlashResult> results = new JunoFlasher(IdfInstallIndex.forProject(projectDir)).flashAll(projectDir, ports, forceBuild);
+            if (results.stream().anyMatch(r -> !r.success())) System.exit(1);
+            return;
+        }
 
-        JunoConfig.load();
-        String serialPort = JunoConfig.updateSerialPortAndSave();
+        File projectDir = null;
+        ToolchainEnvironment toolchain = null;
+        String serialPort = null;
+        JunoSerial serial = null;
+        boolean ok = false;
+        try {
+            // Create project structure (in .juno/ESP32Project)
+            try (PhaseTimer.Phase ignored = timer.phase("scaffold")) {
+                projectDir = JunoProjectCreator.createProject();
+            }
 
-        // Create project structure (in .juno/ESP32Project)
-        File projectDir = JunoProjectCreator.createProject();
+            // The IDF version the project is pinned to, or the newest installed one
+            toolchain = IdfInstallIndex.forProject(projectDir);
+            JunoFlasher flasher = new JunoFlasher(toolchain);
+            flasher.setVerifyOnDevice(Arrays.asList(args).contains("--verify-device"));
+            flasher.setPhaseTimer(timer);
 
-        JunoBatchBuilder batchBuilder = new JunoBatchBuilder();
-        batchBuilder.writeBuildScripts(projectDir, serialPort);
+            // The build does not depend on the port, so run it while the port is detected
+            long buildStart = System.nanoTime();
+            CompletableFuture<Void> build = flasher.buildAsync(projectDir, forceBuild)
+                    .whenComplete((r, e) -> timer.add("build", System.nanoTime() - buildStart));
 
-        // Run the flasher (executes the batch file)
-        JunoFlasher flasher = new JunoFlasher();
-        flasher.flashProject(projectDir);
+            try (PhaseTimer.Phase ignored = timer.phase("port")) {
+                serialPort = JunoConfig.updateSerialPortAndSave();
+            }
 
-        //For Serial communication
-        JunoSerial.startJunoSerial();
+            // Flash with idf.py/esptool once the build is done, using the cached ESP-IDF environment
+            JunoFlasher.awaitBuild(build);
+            try (PhaseTimer.Phase ignored = timer.phase("flash")) {
+                flasher.flashBuilt(projectDir, serialPort);
+            }
+
+            //For Serial communication
+            try (PhaseTimer.Phase ignored = timer.phase("handshake")) {
+                serial = JunoSerial.connectAndHandshake();
+            }
+            ok = serial != null;
+        } finally {
+            // Recorded before the terminal, which runs for as long as the user wants
+            recordRun(timer, projectDir, toolchain, serialPort, ok);
+        }
+        if (serial != null) serial.startTerminal();
 
         System.out.println("✅ Done!");
     }
+
+    private static void recordRun(PhaseTimer timer, File projectDir, ToolchainEnvironment toolchain, String port, boolean ok) {
+        String idf = (toolchain != null ? toolchain : JunoPaths.toolchain()).idfVersion();
+        MetricsLog.append(new MetricsLog.Run(System.currentTimeMillis(),
+                projectDir != null ? MetricsLog.projectHash(projectDir) : null, port, idf, ok, timer.millis()));
+    }
 }
@@ -0,0 +1,128 @@
+package juno.builder;
+
+import juno.config.ToolchainEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiler cache shared by all Juno projects: the detected ccache, with its store under
+ * ~/.juno/build-cache and a disk budget. ccache is content addressed: an object is keyed
+ * by the compiler, its flags and the preprocessed source, which covers the chip target,
+ * the sdkconfig (through sdkconfig.h) and the toolchain. So the ESP-IDF components
+ * (freertos, driver, esp_system, ...) compiled for one project are reused by every other
+ * project with the same target, sdkconfig and toolchain. When the store exceeds the budget,
+ * ccache evicts the least recently used entries.
+ *
+ * <p>Tunable with -Djuno.buildCacheDir, -Djuno.buildCacheMb (default 4096) and
+ * -Djuno.buildCache=false.
+ */
+public class BuildCache {
+
+    private static final String STATS_LOG = "juno_ccache.log";
+
+    /**
+     * Compilations of one build that were served from the cache, and those that were not.
+     */
+    public record Stats(int hits, int misses) {
+        public double hitPercent() {
+            return hits + misses == 0 ? 0 : 100.0 * hits / (hits + misses);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d hit(s), %d miss(es) (%.0f%%)", hits, misses, hitPercent());
+        }
+    }
+
+    public static Path root() {
+        String dir = System.getProperty("juno.buildCacheDir");
+        return dir != null ? Paths.get(dir) : Paths.get(System.getProperty("user.home"), ".juno", "build-cache");
+    }
+
+    public static long budgetMb() {
+        return Long.getLong("juno.buildCacheMb", 4096);
+    }
+
+    /**
+     * True if ccache was detected for the toolchain and the cache is not switched off.
+     */
+    public static boolean enabled(ToolchainEnvironment toolchain) {
+        if (!Boolean.parseBoolean(System.getProperty("juno.buildCache", "true"))) return false;
+        String bin = toolchain.cCacheBinPath();
+        return bin != null && !bin.isBlank() && Files.isDirectory(Paths.get(bin));
+    }
+
+    /**
+     * Whether the build directory was configured with ccache: idf.py stores its ccache
+     * setting as CCACHE_ENABLE in CMakeCache.txt and only reads IDF_CCACHE_ENABLE when it
+     * configures. False if the directory is not configured.
+     */
+    public static boolean configuredWithCcache(Path buildDir) throws IOException {
+        Path cmakeCache = buildDir.resolve("CMakeCache.txt");
+        if (!Files.exists(cmakeCache)) return false;
+        for (String line : Files.readAllLines(cmakeCache)) {
+            if (!line.startsWith("CCACHE_ENABLE:") && !line.startsWith("CCACHE_ENABLE=")) continue;
+            String value = line.substring(line.indexOf('=') + 1).trim().toUpperCase(Locale.ROOT);
+            return List.of("1", "ON", "TRUE", "YES", "Y").contains(value);
+        }
+        return false;
+    }
+
+    /**
+     * The build environment with ccache switched on for idf.py and pointed at the shared store.
+     * Paths below the projects' parent directory are hashed relative to the build directory,
+     * so identical sources in different projects share cache entries.
+     */
+    public static Map<String, String> environment(Map<String, String> env, File projectDir, Path buildDir) {
+        Map<String, String> result = new HashMap<>(env);
+        File projectsRoot = projectDir.getAbsoluteFile().getParentFile();
+        result.put("IDF_CCACHE_ENABLE", "1");
+        result.put("CCACHE_DIR", root().resolve("ccache").toString());
+        result.put("CCACHE_MAXSIZE", budgetMb() + "M");
+        result.put("CCACHE_BASEDIR", projectsRoot != null ? projectsRoot.toString() : projectDir.getAbsolutePath());
+        result.put("CCACHE_NOHASHDIR", "true");
+        result.put("CCACHE_STATSLOG", statsLog(buildDir).toString());
+        return result;
+    }
+
+    /**
+     * Starts a new per-build stats log in the build directory.
+     */
+    public static void resetStats(Path buildDir) throws IOException {
+        Files.deleteIfExists(statsLog(buildDir));
+    }
+
+    /**
+     * Hits and misses of the build since {@link #resetStats}, from ccache's stats log:
+     * a "# &lt;source&gt;" line per compilation followed by its result ids.
+     */
+    public static Stats readStats(Path buildDir) throws IOException {
+        Path log = statsLog(buildDir);
+        if (!Files.exists(log)) return new Stats(0, 0);
+
+        int hits = 0;
+        int misses = 0;
+        List<String> lines = Files.readAllLines(log);
+        for (String line : lines) {
+            switch (line.trim()) {
+                case "direct_cache_hit", "preprocessed_cache_hit" -> hits++;
+                case "cache_miss" -> misses++;
+                default -> {
+                }
+            }
+        }
+        return new Stats(hits, misses);
+    }
+
+    private static Path statsLog(Path buildDir) {
+        return buildDir.toAbsolutePath().resolve(STATS_LOG);
+    }
+}
@@ -0,0 +1,129 @@
+package juno.builder;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import juno.config.ToolchainEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Content hashes of everything that feeds an idf.py build (main/ sources, CMakeLists,
+ * the target's sdkconfig, toolchain identity) plus the hashes of the .bin artifacts it
+ * produced. Stored in the target's build directory (build/&lt;chip&gt;/juno_manifest.json)
+ * after a successful build; if the next run computes the same inputs and the artifacts
+ * are intact, the build step can be skipped.
+ */
+public class BuildManifest {
+
+    private static final String MANIFEST_NAME = "juno_manifest.json";
+    private static final List<String> TOP_LEVEL_INPUTS = List.of(
+            "CMakeLists.txt", "sdkconfig.defaults", "partitions.csv", "dependencies.lock");
+
+    // Fields are populated by Gson
+    private Map<String, String> inputs = new TreeMap<>();
+    private Map<String, String> artifacts = new TreeMap<>();
+    private transient Path buildDir;
+
+    private BuildManifest() {
+    }
+
+    /**
+     * Hashes the current build inputs of the project when built for {@code target} with {@code toolchain}.
+     */
+    public static BuildManifest compute(File projectDir, BuildTarget target, ToolchainEnvironment toolchain) throws IOException {
+        Path root = projectDir.toPath();
+        BuildManifest manifest = new BuildManifest();
+        manifest.buildDir = target.buildDir(projectDir);
+
+        List<String> topLevel = new ArrayList<>(TOP_LEVEL_INPUTS);
+        topLevel.add(target.sdkconfig(projectDir).getFileName().toString());
+        topLevel.add("sdkconfig.defaults." + target.chip());
+        for (String name : topLevel) {
+            Path file = root.resolve(name);
+            if (Files.isRegularFile(file)) manifest.inputs.put(name, sha256(file));
+        }
+        Path main = root.resolve("main");
+        if (Files.isDirectory(main)) {
+            try (Stream<Path> files = Files.walk(main)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    manifest.inputs.put(root.relativize(file).toString().replace('\\', '/'), sha256(file));
+                }
+            }
+        }
+        manifest.inputs.put("target", target.chip());
+        manifest.inputs.put("toolchain", toolchain.identity());
+        return manifest;
+    }
+
+    /**
+     * True if the last successful build had exactly these inputs and its artifacts are unchanged.
+     */
+    public boolean matchesLastBuild() {
+        BuildManifest last = load(buildDir);
+        if (last == null || !inputs.equals(last.inputs) || last.artifacts.isEmpty()) return false;
+        try {
+            return last.artifacts.equals(hashArtifacts(buildDir));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records these inputs together with the freshly built artifacts.
+     */
+    public void recordSuccess() throws IOException {
+        artifacts = hashArtifacts(buildDir);
+        Files.createDirectories(buildDir);
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Files.writeString(buildDir.resolve(MANIFEST_NAME), gson.toJson(this));
+    }
+
+    private static BuildManifest load(Path buildDir) {
+        Path file = buildDir.resolve(MANIFEST_NAME);
+        if (!Files.exists(file)) return null;
+        try {
+            BuildManifest manifest = new Gson().fromJson(Files.readString(file), BuildManifest.class);
+            return manifest != null && manifest.inputs != null && manifest.artifacts != null ? manifest : null;
+        } catch (IOException | JsonParseException e) {
+            return null;
+        }
+    }
+
+    // App image in the build directory, plus the bootloader and partition table sub-builds
+    private static Map<String, String> hashArtifacts(Path buildDir) throws IOException {
+        Map<String, String> hashes = new TreeMap<>();
+        for (Path dir : List.of(buildDir, buildDir.resolve("bootloader"), buildDir.resolve("partition_table"))) {
+            if (!Files.isDirectory(dir)) continue;
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path bin : (Iterable<Path>) files.filter(p -> p.getFileName().toString().endsWith(".bin"))::iterator) {
+                    hashes.put(buildDir.relativize(bin).toString().replace('\\', '/'), sha256(bin));
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private static String sha256(Path file) throws IOException {
+        return sha256(Files.readAllBytes(file));
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
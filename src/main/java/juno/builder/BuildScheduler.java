@@ -0,0 +1,279 @@
+package juno.builder;
+
+import juno.config.ToolchainEnvironment;
+import juno.process.ProcessRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs idf.py builds of many projects with bounded concurrency. At most
+ * {@code maxConcurrent} builds run at once and the ninja -j values of running builds
+ * never add up to more than {@code totalJobs}, which defaults to the number of cores,
+ * lowered if free memory cannot feed that many compiler processes. Waiting builds
+ * start in priority order, then in submission order.
+ *
+ * <p>Compilations go through the shared {@link BuildCache} when ccache is available.
+ * Tunable with -Djuno.maxConcurrentBuilds, -Djuno.buildJobs and
+ * -Djuno.memPerBuildJobMb (default 600).
+ */
+public class BuildScheduler {
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    /**
+     * One project to build for a target with the given toolchain. {@code out} receives the build output lines.
+     */
+    public record Job(String name, File projectDir, BuildTarget target, ToolchainEnvironment toolchain, Priority priority,
+                      boolean force, Consumer<String> out) {
+    }
+
+    /**
+     * {@code built} is false when the inputs matched the last build and nothing ran;
+     * {@code reused} is true when the target's build directory was already configured.
+     * {@code cache} is null unless ccache served the build.
+     */
+    public record Outcome(String name, BuildTarget target, boolean built, boolean reused, BuildCache.Stats cache,
+                          int jobs, Duration queued, Duration duration) {
+    }
+
+    private record Result(boolean built, boolean reused, BuildCache.Stats cache) {
+        static final Result SKIPPED = new Result(false, true, null);
+    }
+
+    private static BuildScheduler shared;
+
+    private record Pending(Job job, long seq, long submittedNanos, CompletableFuture<Outcome> future) {
+    }
+
+    private final boolean sizedFromMachine;
+    private int maxConcurrent;
+    private int totalJobs;
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>((a, b) -> a.job.priority() != b.job.priority()
+            ? a.job.priority().compareTo(b.job.priority())
+            : Long.compare(a.seq, b.seq));
+    private final AtomicLong nextSeq = new AtomicLong();
+    private int running;
+    private int jobsInUse;
+
+    public BuildScheduler(int maxConcurrent, int totalJobs) {
+        this.sizedFromMachine = false;
+        setSize(maxConcurrent, totalJobs);
+    }
+
+    private BuildScheduler() {
+        this.sizedFromMachine = true;
+        resize();
+    }
+
+    /**
+     * The JVM-wide scheduler, sized from the system properties and the machine. The size is
+     * sampled again on every call and every submission, so a long-lived JVM such as the
+     * daemon follows the free memory rather than keeping the budget of its first build.
+     */
+    public static synchronized BuildScheduler shared() {
+        if (shared == null) {
+            shared = new BuildScheduler();
+        } else {
+            shared.resize();
+        }
+        return shared;
+    }
+
+    // Running builds keep their jobs; a smaller budget only holds back the next ones
+    private synchronized void resize() {
+        // Memory our own running builds use is theirs to keep, not lost to the budget
+        int jobs = Integer.getInteger("juno.buildJobs", machineJobs(jobsInUse));
+        setSize(Integer.getInteger("juno.maxConcurrentBuilds", Math.max(1, Math.min(4, jobs / 2))), jobs);
+    }
+
+    private synchronized void setSize(int maxConcurrent, int totalJobs) {
+        this.totalJobs = Math.max(1, totalJobs);
+        this.maxConcurrent = Math.max(1, Math.min(maxConcurrent, this.totalJobs));
+    }
+
+    /**
+     * Cores, capped by available memory / memory per compiler job.
+     */
+    public static int machineJobs() {
+        return machineJobs(0);
+    }
+
+    private static int machineJobs(int jobsInUse) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long perJob = Long.getLong("juno.memPerBuildJobMb", 600) * 1024 * 1024;
+        long available = availableMemoryBytes();
+        if (available <= 0 || perJob <= 0) return cores;
+        return (int) Math.max(1, Math.min(cores, available / perJob + jobsInUse));
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized int getTotalJobs() {
+        return totalJobs;
+    }
+
+    public CompletableFuture<Outcome> submit(Job job) {
+        return submitAll(List.of(job)).get(0);
+    }
+
+    /**
+     * Queues all jobs before starting any, so the available jobs are split between them
+     * rather than the first build taking the whole machine.
+     */
+    public List<CompletableFuture<Outcome>> submitAll(List<Job> jobs) {
+        List<CompletableFuture<Outcome>> futures = new ArrayList<>();
+        synchronized (this) {
+            if (sizedFromMachine) resize();
+            for (Job job : jobs) {
+                CompletableFuture<Outcome> future = new CompletableFuture<>();
+                queue.add(new Pending(job, nextSeq.getAndIncrement(), System.nanoTime(), future));
+                futures.add(future);
+            }
+        }
+        dispatch();
+        return futures;
+    }
+
+    // Starts as many queued builds as slots and jobs allow, splitting free jobs evenly
+    private synchronized void dispatch() {
+        while (!queue.isEmpty() && running < maxConcurrent && jobsInUse < totalJobs) {
+            int slots = Math.min(maxConcurrent - running, queue.size());
+            int jobs = Math.max(1, (totalJobs - jobsInUse) / slots);
+            Pending next = queue.poll();
+            running++;
+            jobsInUse += jobs;
+            Thread.ofVirtual().name("build-" + next.job().name()).start(() -> run(next, jobs));
+        }
+    }
+
+    private void run(Pending pending, int jobs) {
+        Job job = pending.job();
+        long start = System.nanoTime();
+        Duration queued = Duration.ofNanos(start - pending.submittedNanos());
+        try {
+            Result result = build(job, jobs);
+            pending.future().complete(new Outcome(job.name(), job.target(), result.built(), result.reused(), result.cache(),
+                    jobs, queued, Duration.ofNanos(System.nanoTime() - start)));
+        } catch (Exception e) {
+            pending.future().completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                running--;
+                jobsInUse -= jobs;
+            }
+            dispatch();
+        }
+    }
+
+    /**
+     * Configures the target's build directory with idf.py if it has no build.ninja yet or
+     * was configured with the other ccache setting, then runs ninja with the granted -j
+     * (idf.py build has no jobs option).
+     */
+    private static Result build(Job job, int jobs) throws IOException, InterruptedException {
+        File projectDir = job.projectDir();
+        BuildTarget target = job.target();
+        ToolchainEnvironment toolchain = job.toolchain();
+        if (!job.force() && BuildManifest.compute(projectDir, target, toolchain).matchesLastBuild()) {
+            job.out().accept("⏭ " + job.name() + " (" + target + "): build inputs unchanged, skipping idf.py build.");
+            return Result.SKIPPED;
+        }
+
+        Map<String, String> env = IdfEnvironment.forIdf(toolchain);
+        if (env == null) throw new IllegalStateException("ESP-IDF environment is not available");
+
+        job.out().accept("🔨 Building " + job.name() + " for " + target + " with " + jobs + " job(s)...");
+        Path buildDir = target.buildDir(projectDir);
+        boolean reused = Files.exists(buildDir.resolve("build.ninja"));
+        boolean cached = BuildCache.enabled(toolchain);
+        if (cached) {
+            Files.createDirectories(buildDir);
+            BuildCache.resetStats(buildDir);
+            env = BuildCache.environment(env, projectDir, buildDir);
+        } else {
+            // An IDF_CCACHE_ENABLE=1 from the user's shell would configure with ccache again
+            env = new HashMap<>(env);
+            env.put("IDF_CCACHE_ENABLE", "0");
+        }
+        boolean reconfigure = !reused;
+        if (reused && BuildCache.configuredWithCcache(buildDir) != cached) {
+            // ninja alone would keep compiling with the old setting
+            job.out().accept("🔁 " + job.name() + " (" + target + "): ccache " + (cached ? "enabled" : "disabled")
+                    + " since the last configure, reconfiguring.");
+            reconfigure = true;
+        }
+        if (reconfigure) {
+            target.adoptSharedSdkconfig(projectDir);
+            List<String> configure = new ArrayList<>(List.of(toolchain.python(),
+                    Paths.get(env.getOrDefault("IDF_PATH", toolchain.idfPath()), "tools", "idf.py").toString(),
+                    "-B", buildDir.toString()));
+            configure.addAll(List.of(target.idfOptions(projectDir)));
+            configure.add("reconfigure");
+            expectSuccess(job, "Configuring", runner(projectDir, env, configure, job.out()).run());
+        }
+        List<String> ninja = List.of("ninja", "-C", buildDir.toString(), "-j", String.valueOf(jobs), "all");
+        expectSuccess(job, "Build", runner(projectDir, env, ninja, job.out()).run());
+
+        // Hash after the build: idf.py may have generated or updated sdkconfig
+        BuildManifest.compute(projectDir, target, toolchain).recordSuccess();
+        TargetBuildStats.record(projectDir, target, reused);
+        BuildCache.Stats cache = null;
+        if (cached) {
+            cache = BuildCache.readStats(buildDir);
+            job.out().accept("🗄 ccache: " + cache);
+        }
+        return new Result(true, reused, cache);
+    }
+
+    private static void expectSuccess(Job job, String step, ProcessRunner.Result result) {
+        if (!result.succeeded()) {
+            throw new RuntimeException(step + " of " + job.name() + " failed, " + result.describeFailure());
+        }
+    }
+
+    private static ProcessRunner runner(File projectDir, Map<String, String> env, List<String> command, Consumer<String> out) {
+        return ProcessRunner.command(command)
+                .directory(projectDir)
+                .environment(env)
+                .onOutput(out)
+                .timeout(Duration.ofSeconds(Long.getLong("juno.processTimeoutSec", 1800)))
+                .inactivityTimeout(Duration.ofSeconds(Long.getLong("juno.inactivityTimeoutSec", 300)));
+    }
+
+    // MemAvailable on Linux (counts reclaimable cache), the JVM's view of free memory elsewhere
+    private static long availableMemoryBytes() {
+        Path meminfo = Paths.get("/proc/meminfo");
+        if (Files.isReadable(meminfo)) {
+            try {
+                for (String line : Files.readAllLines(meminfo)) {
+                    if (line.startsWith("MemAvailable:")) {
+                        return Long.parseLong(line.replaceAll("\\D+", "")) * 1024;
+                    }
+                }
+            } catch (IOException | NumberFormatException ignored) {
+            }
+        }
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getFreeMemorySize();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,71 @@
+package juno.builder;
+
+import juno.config.ProjectSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The chip a project is built for. Every target keeps its own build directory
+ * (build/&lt;chip&gt;) and sdkconfig (sdkconfig.&lt;chip&gt;), so switching between targets
+ * reuses the previous build of each instead of an idf.py set-target wiping build/.
+ */
+public record BuildTarget(String chip) {
+
+    public static final String DEFAULT_CHIP = "esp32";
+    private static final Pattern CHIP = Pattern.compile("esp32[a-z0-9]*");
+
+    public BuildTarget {
+        chip = chip.toLowerCase(Locale.ROOT);
+        if (!CHIP.matcher(chip).matches()) {
+            throw new IllegalArgumentException("Unknown target: " + chip + " (expected esp32, esp32s3, esp32c3, ...)");
+        }
+    }
+
+    /**
+     * The target to build a project for: -Djuno.target, else the project's
+     * juno_project.json, else esp32.
+     */
+    public static BuildTarget of(File projectDir) {
+        String chip = System.getProperty("juno.target");
+        if (chip == null) chip = ProjectSettings.load(projectDir).getTarget();
+        return new BuildTarget(chip != null ? chip : DEFAULT_CHIP);
+    }
+
+    public Path buildDir(File projectDir) {
+        return projectDir.toPath().resolve("build").resolve(chip);
+    }
+
+    public Path sdkconfig(File projectDir) {
+        return projectDir.toPath().resolve("sdkconfig." + chip);
+    }
+
+    /**
+     * The idf.py options selecting this target's sdkconfig and chip, to go with -B {@link #buildDir}.
+     */
+    public String[] idfOptions(File projectDir) {
+        return new String[]{"-DIDF_TARGET=" + chip, "-DSDKCONFIG=" + sdkconfig(projectDir)};
+    }
+
+    /**
+     * Seeds sdkconfig.&lt;chip&gt; from a shared sdkconfig that was generated for this chip,
+     * so menuconfig changes made before per-target builds are kept.
+     */
+    public void adoptSharedSdkconfig(File projectDir) throws IOException {
+        Path shared = projectDir.toPath().resolve("sdkconfig");
+        Path own = sdkconfig(projectDir);
+        if (Files.exists(own) || !Files.isRegularFile(shared)) return;
+        if (Files.readString(shared).contains("CONFIG_IDF_TARGET=\"" + chip + "\"")) {
+            Files.copy(shared, own);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return chip;
+    }
+}
@@ -0,0 +1,227 @@
+package juno.builder;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import juno.config.ToolchainEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * What sourcing ESP-IDF's export.sh (export.bat on Windows) changes in the environment.
+ * The export script is run once per installation and only the variables it adds or changes
+ * are cached in .juno/idf_env.json, keyed by IDF_PATH, the IDF version and the export
+ * script's hash; path lists it extends keep just the added entries. Each idf.py launch puts
+ * them on top of the current environment, so later changes to PATH, HOME or proxies still
+ * apply. Several installations can be cached side by side.
+ */
+public class IdfEnvironment {
+
+    private static final Path CACHE_PATH = Paths.get(System.getProperty("user.dir"), ".juno", "idf_env.json");
+    // Shell bookkeeping that differs per invocation and must not leak into child processes
+    private static final Set<String> VOLATILE_VARS = Set.of("_", "SHLVL", "PWD", "OLDPWD");
+    private static final Map<String, IdfEnvironment> MEMORY = new ConcurrentHashMap<>();
+
+    // Fields are populated by Gson
+    private String idfPath;
+    private String idfVersion;
+    private Map<String, String> set;     // added or replaced variables
+    private Map<String, String> prepend; // entries put in front of a path list
+
+    private IdfEnvironment() {
+    }
+
+    /**
+     * Returns the current environment with the toolchain's IDF installation exported on top,
+     * capturing and caching the export on first use. Returns null if the export script could
+     * not be run.
+     */
+    public static Map<String, String> forIdf(ToolchainEnvironment toolchain) {
+        if (!toolchain.hasIdf()) return null;
+
+        String key;
+        try {
+            key = cacheKey(toolchain.idfPath(), toolchain.idfVersion());
+        } catch (IOException e) {
+            System.err.println("⚠️ Cannot read ESP-IDF export script: " + e.getMessage());
+            return null;
+        }
+
+        IdfEnvironment snapshot = MEMORY.get(key);
+        if (snapshot != null) return snapshot.applyTo(System.getenv());
+        synchronized (IdfEnvironment.class) {
+            snapshot = MEMORY.get(key);
+            if (snapshot != null) return snapshot.applyTo(System.getenv());
+
+            Map<String, IdfEnvironment> stored = loadCache();
+            IdfEnvironment cached = stored.get(key);
+            if (cached != null) {
+                MEMORY.put(key, cached);
+                return cached.applyTo(System.getenv());
+            }
+
+            long start = System.nanoTime();
+            Map<String, String> exported = capture(toolchain);
+            if (exported == null) return null;
+            System.out.println("📸 Captured ESP-IDF " + toolchain.idfVersion() + " environment in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            snapshot = diff(System.getenv(), exported);
+            snapshot.idfPath = toolchain.idfPath();
+            snapshot.idfVersion = toolchain.idfVersion();
+            // Drop stale entries for the same installation (old version or export script)
+            stored.values().removeIf(e -> toolchain.idfPath().equals(e.idfPath));
+            stored.put(key, snapshot);
+            save(stored);
+            MEMORY.put(key, snapshot);
+            return snapshot.applyTo(System.getenv());
+        }
+    }
+
+    // The variables export.sh added or changed; a value ending in the old one extends a path list
+    static IdfEnvironment diff(Map<String, String> before, Map<String, String> after) {
+        IdfEnvironment snapshot = new IdfEnvironment();
+        snapshot.set = new LinkedHashMap<>();
+        snapshot.prepend = new LinkedHashMap<>();
+        after.forEach((name, value) -> {
+            String old = before.get(name);
+            if (value.equals(old)) return;
+            if (old != null && !old.isEmpty() && value.endsWith(File.pathSeparator + old)) {
+                snapshot.prepend.put(name, value.substring(0, value.length() - old.length() - 1));
+            } else {
+                snapshot.set.put(name, value);
+            }
+        });
+        return snapshot;
+    }
+
+    Map<String, String> applyTo(Map<String, String> current) {
+        Map<String, String> env = new LinkedHashMap<>(current);
+        env.putAll(set);
+        prepend.forEach((name, entries) -> env.merge(name, entries, (old, added) -> added + File.pathSeparator + old));
+        return env;
+    }
+
+    /**
+     * Drops the cached snapshot so the next call re-runs the export script.
+     */
+    public static void invalidate() {
+        MEMORY.clear();
+        try {
+            Files.deleteIfExists(CACHE_PATH);
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to delete " + CACHE_PATH + ": " + e.getMessage());
+        }
+    }
+
+    private static Map<String, String> capture(ToolchainEnvironment toolchain) {
+        String idfPath = toolchain.idfPath();
+        boolean windows = isWindows();
+        Path exportScript = Paths.get(idfPath, windows ? "export.bat" : "export.sh");
+        if (!Files.exists(exportScript)) {
+            System.err.println("❌ " + exportScript.getFileName() + " not found in IDF_PATH");
+            return null;
+        }
+
+        ProcessBuilder pb = windows
+                ? new ProcessBuilder("cmd.exe", "/c", "call \"" + exportScript + "\" >nul 2>&1 && set")
+                : new ProcessBuilder("bash", "-c", ". \"$IDF_PATH/export.sh\" >/dev/null 2>&1 && env -0");
+        Map<String, String> base = pb.environment();
+        base.put("IDF_PATH", idfPath);
+        base.put("PATH", Stream.of(toolchain.toolPath(), Paths.get(idfPath, "tools").toString(), base.getOrDefault("PATH", ""))
+                .filter(p -> !p.isEmpty())
+                .collect(Collectors.joining(File.pathSeparator)));
+        pb.redirectErrorStream(false);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+
+        try {
+            Process process = pb.start();
+            byte[] output = process.getInputStream().readAllBytes();
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                System.err.println("❌ ESP-IDF export script failed with exit code: " + exitCode);
+                return null;
+            }
+            return parse(new String(output, StandardCharsets.UTF_8), windows ? "\r?\n" : "\0");
+        } catch (IOException e) {
+            System.err.println("❌ Failed to run ESP-IDF export script: " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static Map<String, String> parse(String output, String separatorRegex) {
+        Map<String, String> env = new LinkedHashMap<>();
+        for (String entry : output.split(separatorRegex)) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0) continue;
+            String name = entry.substring(0, eq);
+            if (!VOLATILE_VARS.contains(name)) env.put(name, entry.substring(eq + 1));
+        }
+        return env;
+    }
+
+    private static String cacheKey(String idfPath, String version) throws IOException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(idfPath.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(version.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(Files.readAllBytes(Paths.get(idfPath, isWindows() ? "export.bat" : "export.sh")));
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Map<String, IdfEnvironment> loadCache() {
+        if (Files.exists(CACHE_PATH)) {
+            try {
+                Map<String, IdfEnvironment> entries = new Gson().fromJson(Files.readString(CACHE_PATH),
+                        new TypeToken<Map<String, IdfEnvironment>>() {
+                        }.getType());
+                if (entries != null) {
+                    Map<String, IdfEnvironment> result = new LinkedHashMap<>(entries);
+                    // Older versions stored the whole environment, secrets included: drop those
+                    if (result.values().removeIf(e -> e.set == null || e.prepend == null)) save(result);
+                    return result;
+                }
+            } catch (IOException | JsonParseException e) {
+                System.err.println("⚠️ Ignoring unreadable ESP-IDF environment cache: " + e.getMessage());
+            }
+        }
+        return new LinkedHashMap<>();
+    }
+
+    private static void save(Map<String, IdfEnvironment> entries) {
+        try {
+            Files.createDirectories(CACHE_PATH.getParent());
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            Files.writeString(CACHE_PATH, gson.toJson(entries));
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to save ESP-IDF environment to " + CACHE_PATH + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase().contains("win");
+    }
+}
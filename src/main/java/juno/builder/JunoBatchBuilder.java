@@ -1,6 +1,6 @@
 package juno.builder;
 
-import juno.config.JunoPaths;
+import juno.config.ToolchainEnvironment;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -10,12 +10,21 @@ import java.util.stream.Stream;
 
 public class JunoBatchBuilder {
 
-    private static final String IDF_PATH = JunoPaths.idfPath;
-    private static final String PYTHON_EXE_PATH = JunoPaths.pythonExecutablePath;
-    private static final String PATH = Stream.of(JunoPaths.xtensaGdbPath, JunoPaths.xtensaToolchainPath, JunoPaths.espClangPath, JunoPaths.cMakePath, JunoPaths.openOcdBin, JunoPaths.ninjaPath, JunoPaths.idfPyPath, JunoPaths.cCacheBinPath, JunoPaths.dfuUtilBinPath, JunoPaths.pythonPath, JunoPaths.openOcdScriptsPath).filter(p -> p != null && !p.isBlank()).collect(Collectors.joining(";"));
-
-    private static final String OPENOCD_SCRIPTS = JunoPaths.openOcdScriptsPath;
-    private static final String GIT_PATH = JunoPaths.gitPath;
+    private final String idfPath;
+    private final String pythonExePath;
+    private final String path;
+    private final String openOcdScripts;
+    private final String gitPath;
+
+    public JunoBatchBuilder(ToolchainEnvironment toolchain) {
+        this.idfPath = toolchain.idfPath();
+        this.pythonExePath = toolchain.pythonExecutablePath();
+        this.path = Stream.of(toolchain.toolPath(";"), toolchain.openOcdScriptsPath())
+                .filter(p -> p != null && !p.isBlank())
+                .collect(Collectors.joining(";"));
+        this.openOcdScripts = toolchain.openOcdScriptsPath();
+        this.gitPath = toolchain.gitPath();
+    }
 
     public void writeBuildScripts(File projectDir, String comPort) throws IOException {
         String osName = System.getProperty("os.name").toLowerCase();
@@ -73,7 +82,7 @@ public class JunoBatchBuilder {
                 
                 
                 
-                """.formatted(IDF_PATH, PATH, OPENOCD_SCRIPTS, PYTHON_EXE_PATH, GIT_PATH, projectDir.getAbsolutePath(), comPort, comPort);
+                """.formatted(idfPath, path, openOcdScripts, pythonExePath, gitPath, projectDir.getAbsolutePath(), comPort, comPort);
 
 
         try (FileWriter writer = new FileWriter(batchFile)) {
@@ -130,7 +139,7 @@ public class JunoBatchBuilder {
                 
                 # === Done ===
                 echo "✅ Operation completed."
-                """.formatted(IDF_PATH, OPENOCD_SCRIPTS, PYTHON_EXE_PATH, GIT_PATH, PATH, projectDir.getAbsolutePath(), comPort, comPort, comPort);
+                """.formatted(idfPath, openOcdScripts, pythonExePath, gitPath, path, projectDir.getAbsolutePath(), comPort, comPort, comPort);
 
         try (FileWriter writer = new FileWriter(bashFile)) {
             writer.write(bashContent);
@@ -0,0 +1,86 @@
+package juno.builder;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * How often each target's build directory was reused, kept in build/juno_targets.json.
+ * A build is "reused" when the target's build directory was already configured, so only
+ * ninja's incremental build ran; otherwise idf.py had to configure from scratch.
+ */
+public class TargetBuildStats {
+
+    private static final String FILE_NAME = "juno_targets.json";
+
+    public static class Counts {
+        int builds;
+        int reused;
+
+        public int builds() {
+            return builds;
+        }
+
+        public int reused() {
+            return reused;
+        }
+    }
+
+    // Fields are populated by Gson
+    private Map<String, Counts> targets = new TreeMap<>();
+
+    private TargetBuildStats() {
+    }
+
+    public static synchronized TargetBuildStats load(File projectDir) {
+        Path file = file(projectDir);
+        if (Files.exists(file)) {
+            try {
+                TargetBuildStats stats = new Gson().fromJson(Files.readString(file), TargetBuildStats.class);
+                if (stats != null && stats.targets != null) return stats;
+            } catch (IOException | JsonParseException e) {
+                System.err.println("⚠️ Ignoring unreadable " + file + ": " + e.getMessage());
+            }
+        }
+        return new TargetBuildStats();
+    }
+
+    /**
+     * Counts one build of {@code target} and saves the stats.
+     */
+    public static synchronized TargetBuildStats record(File projectDir, BuildTarget target, boolean reused) throws IOException {
+        TargetBuildStats stats = load(projectDir);
+        Counts counts = stats.targets.computeIfAbsent(target.chip(), t -> new Counts());
+        counts.builds++;
+        if (reused) counts.reused++;
+
+        Path file = file(projectDir);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(stats));
+        return stats;
+    }
+
+    public Map<String, Counts> targets() {
+        return targets;
+    }
+
+    /**
+     * Reused builds / all builds over every target, in percent; 0 before the first build.
+     */
+    public double reusePercent() {
+        int builds = targets.values().stream().mapToInt(c -> c.builds).sum();
+        int reused = targets.values().stream().mapToInt(c -> c.reused).sum();
+        return builds == 0 ? 0 : 100.0 * reused / builds;
+    }
+
+    private static Path file(File projectDir) {
+        return projectDir.toPath().resolve("build").resolve(FILE_NAME);
+    }
+}
@@ -1,12 +1,51 @@
 package juno.cli;
 
+import juno.cli.commands.BenchCommand;
+import juno.cli.commands.BuildCommand;
+import juno.cli.commands.DaemonCommand;
 import juno.cli.commands.FlashCommand;
+import juno.cli.commands.IdfCommand;
+import juno.cli.commands.StatsCommand;
+import juno.config.ConfigurationException;
+import juno.daemon.DaemonClient;
+import juno.jfr.FlightRecording;
 
 import java.util.Arrays;
+import java.util.OptionalInt;
 
 public class JunoCLI {
 
     public static void main(String[] args) {
+        // A recording belongs to this process, so --record always runs in-process
+        if (FlightRecording.startIfRequested(args) != null) {
+            dispatchOrExit(Arrays.stream(args).filter(a -> !a.startsWith("--record")).toArray(String[]::new));
+            return;
+        }
+
+        // Forward to a running daemon when there is one; otherwise run in-process
+        if (args.length > 0 && !args[0].equals("daemon") && !Boolean.getBoolean("juno.noDaemon")) {
+            OptionalInt exitCode = DaemonClient.tryForward(args);
+            if (exitCode.isPresent()) {
+                if (exitCode.getAsInt() != 0) System.exit(exitCode.getAsInt());
+                return;
+            }
+        }
+        dispatchOrExit(args);
+    }
+
+    // In-process run: a configuration error ends the JVM with exit code 1
+    private static void dispatchOrExit(String[] args) {
+        try {
+            dispatch(args);
+        } catch (ConfigurationException e) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a command in this JVM. Also the entry point the daemon uses for forwarded commands.
+     */
+    public static void dispatch(String[] args) {
         if (args.length == 0) {
             printHelp();
             return;
@@ -16,7 +55,12 @@ public class JunoCLI {
         String[] subArgs = Arrays.copyOfRange(args, 1, args.length);
 
         switch (command) {
+            case "build" -> BuildCommand.run(subArgs);
             case "flash" -> FlashCommand.run(subArgs);
+            case "daemon" -> DaemonCommand.run(subArgs);
+            case "stats" -> StatsCommand.run(subArgs);
+            case "idf" -> IdfCommand.run(subArgs);
+            case "bench" -> BenchCommand.run(subArgs);
             case "--help", "help" -> printHelp();
             case "--version", "version" -> printVersion();
             default -> {
@@ -34,10 +78,18 @@ public class JunoCLI {
               juno <command> [options]
 
             Available commands:
+              build         Build one or more named projects
               flash         Flash firmware to ESP32
+              daemon        Start/stop the resident Juno daemon
+              stats         Show phase timings and regressions of recent runs
+              idf           List installed ESP-IDF versions, pin one per project
+              bench         Benchmark serial round trips (bench serial --port X)
               help          Show this help message
               version       Show CLI version
 
+            Global options:
+              --record[=file]  Write a Java Flight Recorder file (default .juno/juno-<time>.jfr)
+
             Example:
               juno flash --port COM3
             """);
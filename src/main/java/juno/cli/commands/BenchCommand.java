@@ -0,0 +1,115 @@
+package juno.cli.commands;
+
+import juno.config.JunoDetector;
+import juno.serial.FirmwareEmulator;
+import juno.serial.JSerialCommTransport;
+import juno.serial.JunoSerial;
+import juno.serial.PtyTransport;
+import juno.serial.SerialBench;
+import juno.serial.SerialTransport;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class BenchCommand {
+
+    public static void run(String[] args) {
+        if (args.length == 0 || !args[0].equals("serial")) {
+            printHelp();
+            return;
+        }
+
+        String port = null;
+        String pty = null;
+        boolean emulator = false;
+        int[] sizes = SerialBench.DEFAULT_SIZES;
+        int requests = 1000;
+        int warmup = 100;
+        int window = 0;
+
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port", "-p" -> port = requireValue(args, ++i);
+                    case "--pty" -> pty = requireValue(args, ++i);
+                    case "--emulator" -> emulator = true;
+                    case "--sizes" -> sizes = Arrays.stream(requireValue(args, ++i).split(","))
+                            .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                    case "--requests", "-n" -> requests = Integer.parseInt(requireValue(args, ++i));
+                    case "--warmup" -> warmup = Integer.parseInt(requireValue(args, ++i));
+                    case "--window", "-w" -> window = Integer.parseInt(requireValue(args, ++i));
+                    case "--help", "-h" -> {
+                        printHelp();
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (requests < 1) throw new IllegalArgumentException("--requests must be at least 1");
+            if (window < 0) throw new IllegalArgumentException("--window must not be negative");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printHelp();
+            return;
+        }
+
+        SerialTransport transport;
+        if (emulator) {
+            transport = FirmwareEmulator.startOnPipe();
+        } else if (pty != null) {
+            transport = new PtyTransport(Paths.get(pty));
+        } else {
+            if (port == null) port = JunoDetector.detectEsp32Port();
+            if (port == null) {
+                System.err.println("❌ No serial port specified or detected. Use --port, --pty or --emulator.");
+                return;
+            }
+            transport = new JSerialCommTransport(port, JunoSerial.baudRate());
+        }
+
+        JunoSerial serial = JunoSerial.connectAndHandshake(transport);
+        if (serial == null) return;
+        try {
+            if (window > 0) serial.setRequestWindow(window);
+            System.out.println("Serial round trips on " + transport.name() + ": " + requests + " request(s) per size, "
+                    + warmup + " warm-up" + (window > 0 ? ", " + window + " in flight" : ", one at a time"));
+            System.out.printf("  %6s %10s %10s %10s %10s %10s %10s%n", "bytes", "req/s", "KiB/s", "p50 us", "p90 us", "p99 us", "max us");
+            SerialBench bench = new SerialBench();
+            for (int size : sizes) {
+                SerialBench.Result r = window > 0
+                        ? bench.runPipelined(serial, size, requests, warmup)
+                        : bench.run(serial, size, requests, warmup);
+                System.out.printf("  %6d %,10.0f %,10.1f %,10.1f %,10.1f %,10.1f %,10.1f%n", r.size(), r.requestsPerSecond(),
+                        r.kibPerSecond(), r.p50() / 1e3, r.p90() / 1e3, r.p99() / 1e3, r.max() / 1e3);
+            }
+        } finally {
+            serial.disconnect();
+        }
+    }
+
+    private static String requireValue(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    private static void printHelp() {
+        System.out.println("""
+                Usage: juno bench serial [options]
+
+                Measures request/response round trips with the Juno firmware: each request
+                is a line the firmware echoes back. Reports throughput and latency
+                percentiles per message size. The same workload runs in the JMH
+                benchmarks (bench/). With --window the requests are pipelined with
+                sequence ids (JunoSerial.request) instead of sent one at a time.
+
+                Options:
+                  -p, --port <port>        Board to measure (default: detected port)
+                  --pty <device>           Use a pseudo-terminal, e.g. /dev/pts/3
+                  --emulator               Use the in-memory firmware emulator
+                  --sizes <n,...>          Message sizes in bytes (default 8,64,512,4096)
+                  -n, --requests <n>       Timed round trips per size (default 1000)
+                  --warmup <n>             Untimed round trips per size (default 100)
+                  -w, --window <n>         Pipeline up to n requests in flight
+                """);
+    }
+}
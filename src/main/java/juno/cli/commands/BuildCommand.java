@@ -0,0 +1,165 @@
+package juno.cli.commands;
+
+import juno.builder.BuildCache;
+import juno.builder.BuildScheduler;
+import juno.builder.BuildTarget;
+import juno.builder.TargetBuildStats;
+import juno.config.IdfInstallIndex;
+import juno.config.JunoConfig;
+import juno.pbuilder.JunoProjectCreator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class BuildCommand {
+
+    public static void run(String[] args) {
+        List<String> specs = new ArrayList<>();
+        boolean all = false;
+        boolean force = false;
+        Integer jobs = null;
+        Integer maxConcurrent = null;
+        BuildTarget target = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--all", "-a" -> all = true;
+                    case "--force", "-f" -> force = true;
+                    case "--jobs", "-j" -> jobs = Integer.parseInt(requireValue(args, ++i));
+                    case "--max-concurrent" -> maxConcurrent = Integer.parseInt(requireValue(args, ++i));
+                    case "--target", "-t" -> target = new BuildTarget(requireValue(args, ++i));
+                    case "--help", "-h" -> {
+                        printHelp();
+                        return;
+                    }
+                    default -> {
+                        if (args[i].startsWith("-")) throw new IllegalArgumentException("Unknown option: " + args[i]);
+                        specs.add(args[i]);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printHelp();
+            return;
+        }
+
+        try {
+            JunoConfig.load();
+            if (all) {
+                for (String name : JunoProjectCreator.listProjects()) {
+                    if (specs.stream().noneMatch(s -> s.split(":")[0].equals(name))) specs.add(name);
+                }
+            }
+            if (specs.isEmpty()) specs.add(JunoProjectCreator.DEFAULT_PROJECT);
+
+            BuildScheduler scheduler = jobs != null || maxConcurrent != null
+                    ? new BuildScheduler(maxConcurrent != null ? maxConcurrent : BuildScheduler.shared().getMaxConcurrent(),
+                    jobs != null ? jobs : BuildScheduler.shared().getTotalJobs())
+                    : BuildScheduler.shared();
+            System.out.println("Building " + specs.size() + " project(s): up to " + scheduler.getMaxConcurrent()
+                    + " at once, " + scheduler.getTotalJobs() + " job(s) in total.");
+
+            List<BuildScheduler.Job> buildJobs = new ArrayList<>();
+            for (String spec : specs) buildJobs.add(job(spec, target, force));
+            List<CompletableFuture<BuildScheduler.Outcome>> futures = scheduler.submitAll(buildJobs);
+
+            int failed = 0;
+            System.out.println("Build summary:");
+            for (int i = 0; i < futures.size(); i++) {
+                String name = buildJobs.get(i).name();
+                try {
+                    BuildScheduler.Outcome o = futures.get(i).get();
+                    System.out.printf("  ✅ %-20s %-8s %s, -j%d, queued %d ms, %d ms%s%n", name, o.target(),
+                            !o.built() ? "up to date" : o.reused() ? "incremental" : "configured",
+                            o.jobs(), o.queued().toMillis(), o.duration().toMillis(),
+                            o.cache() != null ? ", ccache " + o.cache().hits() + "/" + (o.cache().hits() + o.cache().misses()) : "");
+                } catch (ExecutionException e) {
+                    failed++;
+                    System.out.printf("  ❌ %-20s %s%n", name, e.getCause().getMessage());
+                }
+            }
+            System.out.println("  " + (futures.size() - failed) + "/" + futures.size() + " project(s) built.");
+            printReuse(buildJobs);
+            printCache(futures);
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            System.err.println("Error building projects: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // How often switching targets found the target's build directory still configured
+    private static void printReuse(List<BuildScheduler.Job> jobs) {
+        System.out.println("Build directory reuse:");
+        for (BuildScheduler.Job job : jobs) {
+            TargetBuildStats stats = TargetBuildStats.load(job.projectDir());
+            StringBuilder perTarget = new StringBuilder();
+            stats.targets().forEach((chip, c) -> perTarget.append(", ").append(chip).append(' ')
+                    .append(c.reused()).append('/').append(c.builds()));
+            System.out.printf("  %-20s %.0f%%%s%n", job.name(), stats.reusePercent(), perTarget);
+        }
+    }
+
+    // ccache hits and misses over all builds of this run
+    private static void printCache(List<CompletableFuture<BuildScheduler.Outcome>> futures) {
+        int hits = 0;
+        int misses = 0;
+        for (CompletableFuture<BuildScheduler.Outcome> future : futures) {
+            BuildScheduler.Outcome o = future.isCompletedExceptionally() ? null : future.join();
+            if (o == null || o.cache() == null) continue;
+            hits += o.cache().hits();
+            misses += o.cache().misses();
+        }
+        if (hits + misses > 0) {
+            System.out.println("Build cache (" + BuildCache.root() + ", " + BuildCache.budgetMb() + " MB): "
+                    + new BuildCache.Stats(hits, misses));
+        }
+    }
+
+    // "name" or "name:high|normal|low"; the project is scaffolded if it does not exist yet
+    private static BuildScheduler.Job job(String spec, BuildTarget target, boolean force) throws IOException {
+        String[] parts = spec.split(":", 2);
+        BuildScheduler.Priority priority = parts.length > 1
+                ? BuildScheduler.Priority.valueOf(parts[1].toUpperCase(Locale.ROOT))
+                : BuildScheduler.Priority.NORMAL;
+        File projectDir = JunoProjectCreator.createProject(parts[0]);
+        String name = parts[0];
+        return new BuildScheduler.Job(name, projectDir, target != null ? target : BuildTarget.of(projectDir),
+                IdfInstallIndex.forProject(projectDir), priority, force,
+                line -> System.out.println("[" + name + "] " + line));
+    }
+
+    private static String requireValue(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    private static void printHelp() {
+        System.out.println("""
+                Usage: juno build [project[:priority]]... [options]
+
+                Creates (if needed) and builds the named projects under .juno/ through the
+                build scheduler. Priority is high, normal (default) or low; queued builds
+                start in priority order. Without names, ESP32Project is built. Each project
+                uses the ESP-IDF version it is pinned to (see juno idf). Every chip target
+                builds in its own build/<chip> with its own sdkconfig.<chip>, so
+                alternating targets stays incremental.
+
+                Options:
+                  -a, --all                Build every project under .juno/
+                  -f, --force              Build even if the inputs are unchanged
+                  -j, --jobs <n>           Total ninja jobs across all builds
+                                           (default: cores, capped by free memory)
+                  --max-concurrent <n>     Builds running at the same time
+                  -t, --target <chip>      Chip to build for (default: the project's
+                                           juno_project.json target, or esp32)
+                """);
+    }
+}
@@ -0,0 +1,58 @@
+package juno.cli.commands;
+
+import juno.daemon.DaemonClient;
+import juno.daemon.JunoDaemon;
+
+import java.io.IOException;
+
+public class DaemonCommand {
+
+    public static void run(String[] args) {
+        String action = args.length > 0 ? args[0] : "status";
+
+        try {
+            switch (action) {
+                case "start" -> {
+                    if (DaemonClient.ping()) {
+                        System.out.println("Juno daemon is already running.");
+                    } else {
+                        JunoDaemon.startInBackground();
+                    }
+                }
+                case "run" -> JunoDaemon.run();
+                case "stop" -> {
+                    if (DaemonClient.stop()) {
+                        System.out.println("✅ Juno daemon stopped.");
+                    } else {
+                        System.out.println("Juno daemon is not running.");
+                    }
+                }
+                case "status" -> System.out.println(DaemonClient.ping()
+                        ? "Juno daemon is running (" + JunoDaemon.getSocketPath() + ")."
+                        : "Juno daemon is not running.");
+                case "--help", "-h" -> printHelp();
+                default -> {
+                    System.err.println("Unknown daemon action: " + action);
+                    printHelp();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error running juno daemon " + action + ": " + e.getMessage());
+        }
+    }
+
+    private static void printHelp() {
+        System.out.println("""
+                Usage: juno daemon <start|stop|status|run>
+
+                Actions:
+                  start     Start the daemon in the background
+                  stop      Stop a running daemon
+                  status    Show whether a daemon is running
+                  run       Run the daemon in the foreground
+
+                While a daemon is running, other juno commands are forwarded to it.
+                Set -Djuno.noDaemon=true to always run in-process.
+                """);
+    }
+}
@@ -1,9 +1,20 @@
 package juno.cli.commands;
 
+import juno.builder.BuildManifest;
+import juno.builder.IdfEnvironment;
+import juno.builder.BuildTarget;
+import juno.config.JunoConfig;
 import juno.config.JunoDetector;
+import juno.config.IdfInstallIndex;
+import juno.config.ToolchainEnvironment;
+import juno.flasher.EsptoolWorker;
+import juno.flasher.FlashHistory;
+import juno.flasher.FlashImage;
+import juno.flasher.JunoFlasher;
+import juno.process.ProcessRunner;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.File;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,6 +23,9 @@ public class FlashCommand {
     public static void run(String[] args) {
         String portName = null;
         boolean showHelp = false;
+        boolean force = false;
+        boolean allPorts = false;
+        String chip = null;
 
         // Parse arguments
         for (int i = 0; i < args.length; i++) {
@@ -25,6 +39,23 @@ public class FlashCommand {
                         return;
                     }
                     break;
+                case "--target":
+                case "-t":
+                    if (i + 1 < args.length) {
+                        chip = args[++i];
+                    } else {
+                        System.err.println("Error: --target requires a value.");
+                        return;
+                    }
+                    break;
+                case "--all":
+                case "-a":
+                    allPorts = true;
+                    break;
+                case "--force":
+                case "-f":
+                    force = true;
+                    break;
                 case "--help":
                 case "-h":
                     showHelp = true;
@@ -40,6 +71,20 @@ public class FlashCommand {
             return;
         }
 
+        File projectDir = new File(System.getProperty("user.dir"));
+        BuildTarget target;
+        try {
+            target = chip != null ? new BuildTarget(chip) : BuildTarget.of(projectDir);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return;
+        }
+
+        if (allPorts) {
+            flashAllPorts(target);
+            return;
+        }
+
         // Auto-detect port if not provided
         if (portName == null) {
             portName = JunoDetector.detectEsp32Port();
@@ -52,8 +97,14 @@ public class FlashCommand {
             }
         }
 
+        String boardId = FlashHistory.boardId(portName);
+        FlashHistory history = FlashHistory.load();
+
         List<String> command = new ArrayList<>();
         command.add("idf.py");
+        command.add("-B");
+        command.add(target.buildDir(projectDir).toString());
+        command.addAll(List.of(target.idfOptions(projectDir)));
         command.add("-p");
         command.add(portName);
         command.add("flash");
@@ -61,23 +112,39 @@ public class FlashCommand {
         System.out.println("Running command: " + String.join(" ", command));
 
         try {
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    System.out.println(line);
+            // The manifest identifies the toolchain the way JunoFlasher records it: the project's pinned IDF
+            JunoConfig.load();
+            ToolchainEnvironment toolchain = IdfInstallIndex.forProject(projectDir);
+            target.adoptSharedSdkconfig(projectDir);
+
+            // idf.py flash rebuilds first, so the built image is only trustworthy if the inputs are unchanged
+            if (!force && BuildManifest.compute(projectDir, target, toolchain).matchesLastBuild()) {
+                FlashImage image = FlashImage.fromBuildDir(target.buildDir(projectDir));
+                if (image != null && image.changedSince(history.lastFlashed(boardId)).isEmpty()) {
+                    System.out.println("Board " + boardId + " already holds this image, skipping flash (use --force to flash anyway).");
+                    return;
                 }
             }
 
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
+            EsptoolWorker.releaseShared(portName); // idf.py opens the port itself
+            ProcessRunner.Result result = ProcessRunner.command(command)
+                    .environment(IdfEnvironment.forIdf(toolchain)) // null: idf.py from PATH
+                    .onOutput(System.out::println)
+                    .inactivityTimeout(Duration.ofSeconds(Long.getLong("juno.inactivityTimeoutSec", 300)))
+                    .run();
+
+            if (result.succeeded()) {
+                BuildManifest.compute(projectDir, target, toolchain).recordSuccess();
+                FlashImage image = FlashImage.fromBuildDir(target.buildDir(projectDir));
+                if (image != null) {
+                    history.record(boardId, image);
+                    history.save();
+                }
                 System.out.println("Flashing completed successfully.");
             } else {
-                System.err.println("Flashing failed with exit code: " + exitCode);
+                history.forget(boardId);
+                history.save();
+                System.err.println("Flashing failed, " + result.describeFailure());
             }
 
         } catch (Exception e) {
@@ -86,12 +153,36 @@ public class FlashCommand {
         }
     }
 
+    // Build once in the current project, then flash every detected board in parallel
+    private static void flashAllPorts(BuildTarget target) {
+        List<String> ports = JunoDetector.detectEsp32Ports();
+        if (ports.isEmpty()) {
+            System.err.println("Error: No ESP32 serial ports detected.");
+            return;
+        }
+        System.out.println("Flashing " + ports.size() + " board(s): " + String.join(", ", ports));
+
+        try {
+            JunoConfig.load();
+            File projectDir = new File(System.getProperty("user.dir"));
+            JunoFlasher flasher = new JunoFlasher(IdfInstallIndex.forProject(projectDir));
+            flasher.setTarget(target);
+            flasher.flashAll(projectDir, ports, false);
+        } catch (Exception e) {
+            System.err.println("Error flashing boards: " + e.getMessage());
+        }
+    }
+
     private static void printHelp() {
         System.out.println("""
                 Usage: juno flash [options]
                 
                 Options:
                   -p, --port <PORT>    Specify the serial port (e.g., COM3 or /dev/ttyUSB0)
+                  -t, --target <chip>  Chip to build for (esp32, esp32s3, esp32c3, ...); each
+                                       target has its own build/<chip> and sdkconfig.<chip>
+                  -a, --all            Build once and flash every detected ESP32 in parallel
+                  -f, --force          Flash even if the board already holds this image
                   -h, --help           Show this help message
                 
                 Example:
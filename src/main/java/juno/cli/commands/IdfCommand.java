@@ -0,0 +1,95 @@
+package juno.cli.commands;
+
+import juno.config.IdfInstallIndex;
+import juno.config.SemVer;
+import juno.pbuilder.JunoProjectCreator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class IdfCommand {
+
+    public static void run(String[] args) {
+        String sub = args.length > 0 ? args[0] : "list";
+        try {
+            switch (sub) {
+                case "list" -> list();
+                case "rescan" -> {
+                    IdfInstallIndex.invalidate();
+                    list();
+                }
+                case "pin" -> {
+                    if (args.length < 3) throw new IllegalArgumentException("Usage: juno idf pin <project> <version|latest>");
+                    pin(args[1], args[2]);
+                }
+                case "--help", "-h", "help" -> printHelp();
+                default -> throw new IllegalArgumentException("Unknown idf command: " + sub);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printHelp();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    private static void list() throws IOException {
+        IdfInstallIndex index = IdfInstallIndex.load();
+        List<IdfInstallIndex.IdfInstall> installs = index.installs();
+        if (installs.isEmpty()) {
+            System.out.println("❌ No ESP-IDF installation found.");
+        } else {
+            System.out.println("ESP-IDF installations (newest first):");
+            for (IdfInstallIndex.IdfInstall install : installs) {
+                System.out.printf("  %-14s %s%n", install.version(), install.path());
+            }
+        }
+
+        System.out.println("Tools:");
+        for (String tool : index.toolNames()) {
+            System.out.printf("  %-22s %s%n", tool,
+                    String.join(", ", index.versionsOf(tool).stream().map(IdfInstallIndex.ToolVersion::version).toList()));
+        }
+
+        List<String> projects = JunoProjectCreator.listProjects();
+        if (!projects.isEmpty()) {
+            System.out.println("Projects:");
+            for (String name : projects) {
+                String pin = IdfInstallIndex.pinOf(projectDir(name));
+                String selected = index.select(pin).map(IdfInstallIndex.IdfInstall::version).orElse("none installed");
+                System.out.printf("  %-22s %s → %s%n", name, pin != null ? "pinned " + pin : "latest", selected);
+            }
+        }
+    }
+
+    private static void pin(String project, String version) throws IOException {
+        File dir = projectDir(project);
+        if (!dir.isDirectory()) throw new IllegalArgumentException("No project named " + project + " under .juno/");
+        if (SemVer.parse(version) == null && !version.equalsIgnoreCase("latest")) {
+            throw new IllegalArgumentException("Not a version: " + version);
+        }
+
+        IdfInstallIndex.pin(dir, version);
+        String pin = IdfInstallIndex.pinOf(dir);
+        IdfInstallIndex.load().select(pin).ifPresentOrElse(
+                install -> System.out.println("📌 " + project + " builds with ESP-IDF " + install.version() + " (" + install.path() + ")"),
+                () -> System.out.println("⚠️ " + project + " is pinned to " + version + ", but no installed ESP-IDF matches it."));
+    }
+
+    private static File projectDir(String name) {
+        return Paths.get(System.getProperty("user.dir"), ".juno", name).toFile();
+    }
+
+    private static void printHelp() {
+        System.out.println("""
+                Usage: juno idf [list | rescan | pin <project> <version|latest>]
+
+                Lists the installed ESP-IDF versions and tool versions, and pins a project
+                to an IDF version. A pin such as 5, 5.2 or v5.2.1 selects the newest
+                installed match; latest removes the pin. The index is cached in
+                .juno/idf_index.json and rebuilt when an install directory changes.
+                """);
+    }
+}
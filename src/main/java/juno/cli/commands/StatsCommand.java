@@ -0,0 +1,88 @@
+package juno.cli.commands;
+
+import juno.metrics.MetricsLog;
+import juno.metrics.PhaseStats;
+
+import java.io.IOException;
+import java.util.List;
+
+public class StatsCommand {
+
+    public static void run(String[] args) {
+        int last = 50;
+        int baseline = 20;
+        double threshold = Double.parseDouble(System.getProperty("juno.regressionThreshold", "25"));
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--last", "-n" -> last = Integer.parseInt(requireValue(args, ++i));
+                    case "--baseline" -> baseline = Integer.parseInt(requireValue(args, ++i));
+                    case "--threshold", "-t" -> threshold = Double.parseDouble(requireValue(args, ++i));
+                    case "--help", "-h" -> {
+                        printHelp();
+                        return;
+                    }
+                    default -> {
+                        System.err.println("Unknown option: " + args[i]);
+                        printHelp();
+                        return;
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printHelp();
+            return;
+        }
+
+        List<MetricsLog.Run> runs;
+        try {
+            runs = MetricsLog.recent(last);
+        } catch (IOException e) {
+            System.err.println("Error reading " + MetricsLog.path() + ": " + e.getMessage());
+            return;
+        }
+        if (runs.isEmpty()) {
+            System.out.println("No runs recorded yet in " + MetricsLog.path() + ".");
+            return;
+        }
+
+        long failed = runs.stream().filter(r -> !r.ok()).count();
+        System.out.println("Phase timings over the last " + runs.size() + " run(s)" + (failed > 0 ? " (" + failed + " failed)" : "") + ":");
+        System.out.printf("  %-12s %6s %10s %10s %10s%n", "phase", "runs", "p50 ms", "p95 ms", "last ms");
+        for (PhaseStats.Summary s : PhaseStats.summarize(runs)) {
+            System.out.printf("  %-12s %6d %,10d %,10d %,10d%n", s.phase(), s.count(), s.p50(), s.p95(), s.last());
+        }
+
+        List<PhaseStats.Regression> regressions = PhaseStats.regressions(runs, threshold, baseline);
+        if (regressions.isEmpty()) {
+            System.out.println("✅ No phase of the latest run regressed more than " + threshold + "% against its baseline.");
+        }
+        for (PhaseStats.Regression r : regressions) {
+            System.out.printf("⚠️ %s regressed: %,d ms vs baseline p50 %,d ms (+%.0f%%, threshold %.0f%%)%n",
+                    r.phase(), r.latest(), r.baselineP50(), r.percent(), threshold);
+        }
+    }
+
+    private static String requireValue(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
+    }
+
+    private static void printHelp() {
+        System.out.println("""
+                Usage: juno stats [options]
+
+                Shows p50/p95 per phase (detect, scaffold, build, port, flash, handshake, ...)
+                from .juno/metrics.log and flags phases of the latest run that regressed.
+
+                Options:
+                  -n, --last <runs>        Number of recent runs to summarize (default 50)
+                  --baseline <runs>        Earlier runs of the same project and IDF version
+                                           used as the regression baseline (default 20)
+                  -t, --threshold <pct>    Regression threshold in percent (default 25,
+                                           or -Djuno.regressionThreshold)
+                """);
+    }
+}
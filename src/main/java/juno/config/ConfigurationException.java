@@ -0,0 +1,16 @@
+package juno.config;
+
+/**
+ * Juno cannot run with the current configuration, e.g. a required path is missing or no
+ * board is connected. The details were already printed to stderr; callers only need to
+ * end the command with a non-zero exit code. Thrown instead of calling System.exit so a
+ * command running inside the daemon does not take the daemon down.
+ */
+public class ConfigurationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConfigurationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,196 @@
+package juno.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of detected JunoPaths values (.juno/detection_cache.json).
+ * Every entry stores a fingerprint of the tool roots it was detected from
+ * (directory mtimes, version folder names, IDF_PATH/IDF_TOOLS_PATH); an entry is
+ * trusted only while its fingerprint still matches, so a warm start skips scanning.
+ */
+public final class DetectionCache {
+
+    private static final Path CACHE_PATH = Paths.get(System.getProperty("user.dir"), ".juno", "detection_cache.json");
+    private static final int FORMAT_VERSION = 1;
+
+    private static class Entry {
+        String value;
+        String fingerprint;
+    }
+
+    // Fields are populated by Gson
+    private int version = FORMAT_VERSION;
+    private Map<String, Entry> entries = new HashMap<>();
+
+    private DetectionCache() {
+    }
+
+    /**
+     * Loads the cache from disk, or returns an empty cache if it is missing or unreadable.
+     */
+    public static DetectionCache load() {
+        if (Files.exists(CACHE_PATH)) {
+            try {
+                DetectionCache cache = new Gson().fromJson(Files.readString(CACHE_PATH), DetectionCache.class);
+                if (cache != null && cache.version == FORMAT_VERSION && cache.entries != null) {
+                    return cache;
+                }
+            } catch (IOException | JsonParseException e) {
+                System.err.println("⚠️ Ignoring unreadable detection cache: " + e.getMessage());
+            }
+        }
+        return new DetectionCache();
+    }
+
+    /**
+     * Returns the cached values whose fingerprint is still valid. Values may be null
+     * (a tool that was not installed), so callers must check with containsKey.
+     */
+    public Map<String, String> lookup(Collection<String> names) {
+        Map<String, String> valid = new HashMap<>();
+        for (String name : names) {
+            Entry entry = entries.get(name);
+            if (entry == null || entry.fingerprint == null) continue;
+            if (entry.fingerprint.equals(fingerprint(name, entry.value))) {
+                valid.put(name, entry.value);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * True if one of {@code stale} (names {@link #lookup} did not return) was cached for a
+     * tool whose roots have changed since. Ports are not tools and never count.
+     */
+    public boolean toolsChanged(Collection<String> stale) {
+        return stale.stream().anyMatch(name -> !name.equals("serialPort") && entries.containsKey(name));
+    }
+
+    public void put(String name, String value) {
+        Entry entry = new Entry();
+        entry.value = value;
+        entry.fingerprint = fingerprint(name, value);
+        entries.put(name, entry);
+    }
+
+    public void save() {
+        try {
+            Files.createDirectories(CACHE_PATH.getParent());
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            Files.writeString(CACHE_PATH, gson.toJson(this));
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to save detection cache to " + CACHE_PATH + ": " + e.getMessage());
+        }
+    }
+
+    public static Path getCachePath() {
+        return CACHE_PATH;
+    }
+
+    /**
+     * Fingerprints the roots a field is detected from. Returns null for fields
+     * that cannot be validated cheaply, which forces re-detection.
+     */
+    static String fingerprint(String name, String value) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("IDF_PATH=").append(System.getenv("IDF_PATH")).append('\n');
+        sb.append("IDF_TOOLS_PATH=").append(System.getenv("IDF_TOOLS_PATH")).append('\n');
+
+        if (name.equals("serialPort")) {
+            // Ports come and go; only a device node that still exists can be trusted.
+            if (value == null || isWindows()) return null;
+            Path device = value.startsWith("/") ? Paths.get(value) : Paths.get("/dev", value);
+            if (!Files.exists(device)) return null;
+            sb.append("device=").append(device).append('\n');
+        } else if (value != null) {
+            sb.append("exists=").append(new File(value).exists()).append('\n');
+        }
+
+        for (Path root : rootsOf(name)) {
+            describe(root, sb);
+        }
+        return sha256(sb.toString());
+    }
+
+    private static List<Path> rootsOf(String name) {
+        Path espressif = ToolIndex.espressifRoot();
+        Path tools = espressif.resolve("tools");
+        return switch (name) {
+            case "idfPath", "idfPyPath" -> idfCandidateRoots();
+            case "pythonPath", "pythonExecutablePath" -> List.of(espressif.resolve("python_env"));
+            case "toolchainPath", "xtensaToolchainPath" -> List.of(tools.resolve("xtensa-esp-elf"));
+            case "gitPath" -> List.of(tools.resolve("idf-git"));
+            case "xtensaGdbPath" -> List.of(tools.resolve("xtensa-esp-elf-gdb"));
+            case "espClangPath" -> List.of(tools.resolve("esp-clang"));
+            case "cMakePath" -> List.of(tools.resolve("cmake"));
+            case "openOcdBin" -> List.of(tools, tools.resolve("openocd-esp32"));
+            case "ninjaPath" -> List.of(tools.resolve("ninja"));
+            case "cCacheBinPath" -> List.of(tools.resolve("ccache"));
+            case "dfuUtilBinPath" -> List.of(tools.resolve("dfu-util"));
+            case "openOcdScriptsPath" -> List.of(tools.resolve("openocd-esp32"));
+            default -> List.of();
+        };
+    }
+
+    private static List<Path> idfCandidateRoots() {
+        List<Path> roots = new ArrayList<>();
+        if (isWindows()) {
+            roots.add(Paths.get("C:", "Espressif", "frameworks"));
+        } else {
+            roots.add(Paths.get(System.getProperty("user.home"), "esp", "esp-idf"));
+            roots.add(Paths.get(System.getProperty("user.home"), "esp-idf"));
+            roots.add(Paths.get("/opt", "espressif", "esp-idf"));
+        }
+        return roots;
+    }
+
+    // Root path, its mtime and the sorted names of its version folders.
+    private static void describe(Path root, StringBuilder sb) {
+        sb.append(root).append(':');
+        if (!Files.isDirectory(root)) {
+            sb.append("missing\n");
+            return;
+        }
+        try (Stream<Path> children = Files.list(root)) {
+            sb.append(Files.getLastModifiedTime(root).toMillis()).append(':');
+            children.filter(Files::isDirectory)
+                    .map(p -> p.getFileName().toString())
+                    .sorted()
+                    .forEach(n -> sb.append(n).append(','));
+        } catch (IOException e) {
+            sb.append("unreadable");
+        }
+        sb.append('\n');
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase().contains("win");
+    }
+}
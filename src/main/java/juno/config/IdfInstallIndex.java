@@ -0,0 +1,382 @@
+package juno.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Every installed ESP-IDF framework and tool version, with parsed semantic versions
+ * (.juno/idf_index.json). The index is rebuilt only when one of the install roots
+ * changes; the toolchain resolved for each IDF install is cached in it too, so switching
+ * IDF versions between builds is a map lookup.
+ *
+ * <p>A project pins a version in its juno_project.json ({@code {"idfVersion": "5.2"}});
+ * without a pin the detected (newest) installation is used.
+ */
+public final class IdfInstallIndex {
+
+    private static final Path CACHE_PATH = Paths.get(System.getProperty("user.dir"), ".juno", "idf_index.json");
+    private static final int FORMAT_VERSION = 1;
+    private static IdfInstallIndex loaded;
+
+    public record IdfInstall(String path, String version) {
+        public SemVer semVer() {
+            SemVer v = SemVer.parse(version);
+            return v != null ? v : new SemVer(0, 0, 0, null, version);
+        }
+    }
+
+    public record ToolVersion(String tool, String version, String path) {
+        public SemVer semVer() {
+            SemVer v = SemVer.parse(version);
+            return v != null ? v : new SemVer(0, 0, 0, null, version);
+        }
+    }
+
+    // Fields are populated by Gson
+    private int format = FORMAT_VERSION;
+    private String fingerprint;
+    private List<IdfInstall> installs = new ArrayList<>();
+    private List<ToolVersion> tools = new ArrayList<>();
+    // IDF path → tool → version recommended by that IDF's tools/tools.json
+    private Map<String, Map<String, String>> recommended = new LinkedHashMap<>();
+    private Map<String, ToolchainEnvironment> toolchains = new LinkedHashMap<>();
+
+    private IdfInstallIndex() {
+    }
+
+    /**
+     * Returns the index, reusing the cached one while the install roots are unchanged.
+     */
+    public static synchronized IdfInstallIndex load() {
+        String current = fingerprint();
+        if (loaded != null && current.equals(loaded.fingerprint)) return loaded;
+
+        IdfInstallIndex cached = readCache();
+        if (cached != null && current.equals(cached.fingerprint)) {
+            loaded = cached;
+        } else {
+            loaded = scan(current);
+            loaded.save();
+        }
+        return loaded;
+    }
+
+    /**
+     * Forgets the cached index so the next {@link #load()} rescans.
+     */
+    public static synchronized void invalidate() {
+        loaded = null;
+        try {
+            Files.deleteIfExists(CACHE_PATH);
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to delete " + CACHE_PATH + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Installed IDF frameworks, newest first.
+     */
+    public List<IdfInstall> installs() {
+        return installs.stream().sorted(Comparator.comparing(IdfInstall::semVer).reversed()).toList();
+    }
+
+    /**
+     * Installed versions of a tool (a directory name under tools/), newest first.
+     */
+    public List<ToolVersion> versionsOf(String tool) {
+        return tools.stream()
+                .filter(t -> t.tool().equals(tool))
+                .sorted(Comparator.comparing(ToolVersion::semVer).reversed())
+                .toList();
+    }
+
+    public Set<String> toolNames() {
+        Set<String> names = new LinkedHashSet<>();
+        tools.forEach(t -> names.add(t.tool()));
+        return names;
+    }
+
+    /**
+     * The newest installed IDF matching the pin ("5", "5.2", "v5.2.1", "latest" or null).
+     */
+    public Optional<IdfInstall> select(String pin) {
+        return installs().stream().filter(i -> i.semVer().matches(pin)).findFirst();
+    }
+
+    /**
+     * The toolchain for an installed IDF: for every tool the version its tools.json
+     * recommends if installed, otherwise the newest installed one.
+     */
+    public synchronized ToolchainEnvironment toolchain(IdfInstall install) {
+        ToolchainEnvironment cached = toolchains.get(install.path());
+        if (cached == null) {
+            cached = resolve(install);
+            toolchains.put(install.path(), cached);
+            save();
+        }
+        return cached;
+    }
+
+    /**
+     * The toolchain a project builds with: its pinned IDF version if it has one, else the detected one.
+     */
+    public static ToolchainEnvironment forProject(File projectDir) {
+        String pin = pinOf(projectDir);
+        if (pin == null) return JunoPaths.toolchain();
+
+        IdfInstallIndex index = load();
+        IdfInstall install = index.select(pin).orElseThrow(() -> new IllegalStateException(
+                "No installed ESP-IDF matches " + projectDir.getName() + "'s pin " + pin + " (installed: "
+                        + String.join(", ", index.installs().stream().map(IdfInstall::version).toList()) + ")"));
+        return index.toolchain(install);
+    }
+
+    public static String pinOf(File projectDir) {
+        return ProjectSettings.load(projectDir).getIdfVersion();
+    }
+
+    /**
+     * Pins the project to an IDF version; null or "latest" removes the pin.
+     */
+    public static void pin(File projectDir, String version) throws IOException {
+        ProjectSettings settings = ProjectSettings.load(projectDir);
+        settings.setIdfVersion(version == null || version.equalsIgnoreCase("latest") ? null : version);
+        settings.save(projectDir);
+    }
+
+    private static IdfInstallIndex scan(String fingerprint) {
+        long start = System.nanoTime();
+        IdfInstallIndex index = new IdfInstallIndex();
+        index.fingerprint = fingerprint;
+
+        for (Path dir : candidateIdfDirs()) {
+            if (!isValidIdf(dir)) continue;
+            String path = dir.toAbsolutePath().normalize().toString();
+            if (index.installs.stream().anyMatch(i -> i.path().equals(path))) continue;
+            index.installs.add(new IdfInstall(path, ToolchainEnvironment.readIdfVersion(path)));
+            index.recommended.put(path, recommendedTools(dir));
+        }
+
+        Path toolsRoot = ToolIndex.espressifRoot().resolve("tools");
+        for (Path toolDir : list(toolsRoot)) {
+            for (Path versionDir : list(toolDir)) {
+                index.tools.add(new ToolVersion(toolDir.getFileName().toString(), versionDir.getFileName().toString(),
+                        versionDir.toAbsolutePath().toString()));
+            }
+        }
+        System.out.println("🗂 Indexed " + index.installs.size() + " ESP-IDF install(s) and " + index.tools.size()
+                + " tool version(s) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return index;
+    }
+
+    private ToolchainEnvironment resolve(IdfInstall install) {
+        Map<String, String> wanted = recommended.getOrDefault(install.path(), Map.of());
+        ToolchainEnvironment detected = JunoPaths.toolchain();
+
+        String toolchainBin = firstNonNull(binDir("xtensa-esp-elf", "xtensa-esp-elf-gcc", wanted),
+                binDir("xtensa-esp32-elf", "xtensa-esp32-elf-gcc", wanted), detected.xtensaToolchainPath());
+        String openOcdBin = firstNonNull(binDir("openocd-esp32", "openocd", wanted), detected.openOcdBin());
+        String openOcdScripts = openOcdBin != null
+                ? Paths.get(openOcdBin).getParent().resolve(Paths.get("share", "openocd", "scripts")).toString()
+                : detected.openOcdScriptsPath();
+        Path git = toolFile("idf-git", isWindows() ? "cmd/git.exe" : "bin/git", wanted);
+        String python = firstNonNull(pythonFor(install), detected.pythonExecutablePath());
+
+        return new ToolchainEnvironment(install.path(), install.version(),
+                Paths.get(install.path(), "tools").toString(),
+                python != null ? Paths.get(python).getParent().toString() : null,
+                python,
+                toolchainBin,
+                git != null ? git.toString() : detected.gitPath(),
+                firstNonNull(binDir("xtensa-esp-elf-gdb", "xtensa-esp32-elf-gdb", wanted), detected.xtensaGdbPath()),
+                toolchainBin,
+                firstNonNull(binDir("esp-clang", "clang", wanted), detected.espClangPath()),
+                firstNonNull(versionDir("cmake", wanted), detected.cMakePath()),
+                openOcdBin,
+                firstNonNull(versionDir("ninja", wanted), detected.ninjaPath()),
+                firstNonNull(binDir("ccache", "ccache", wanted), detected.cCacheBinPath()),
+                firstNonNull(binDir("dfu-util", "dfu-util", wanted), detected.dfuUtilBinPath()),
+                openOcdScripts);
+    }
+
+    // The installed version dir of a tool: the recommended one if present, else the newest
+    private String versionDir(String tool, Map<String, String> wanted) {
+        List<ToolVersion> versions = versionsOf(tool);
+        return versions.stream()
+                .filter(v -> v.version().equals(wanted.get(tool)))
+                .findFirst()
+                .or(() -> versions.stream().findFirst())
+                .map(ToolVersion::path)
+                .orElse(null);
+    }
+
+    private String binDir(String tool, String executable, Map<String, String> wanted) {
+        String dir = versionDir(tool, wanted);
+        if (dir == null) return null;
+        return ToolIndex.espressif().findExecutable(exe(executable), Paths.get(dir))
+                .map(p -> p.getParent().toAbsolutePath().toString())
+                .orElse(null);
+    }
+
+    private Path toolFile(String tool, String relativePath, Map<String, String> wanted) {
+        String dir = versionDir(tool, wanted);
+        if (dir == null) return null;
+        Path file = Paths.get(dir, relativePath);
+        return Files.isExecutable(file) ? file : null;
+    }
+
+    // python_env/idf<major>.<minor>_py<x.y>_env holds the virtualenv of one IDF release
+    private static String pythonFor(IdfInstall install) {
+        SemVer v = install.semVer();
+        Path envs = ToolIndex.espressifRoot().resolve("python_env");
+        String prefix = "idf" + v.major() + "." + v.minor() + "_";
+        List<String> names = isWindows() ? List.of("python.exe") : List.of("python3", "python");
+        for (String name : names) {
+            Optional<Path> found = ToolIndex.espressif().findAll(name, envs).stream()
+                    .filter(p -> envs.relativize(p.toAbsolutePath().normalize()).getName(0).toString().startsWith(prefix))
+                    .max(SemVer.PATH_ORDER);
+            if (found.isPresent()) return found.get().toAbsolutePath().toString();
+        }
+        return null;
+    }
+
+    // tools/tools.json of an IDF release: {"tools":[{"name":..., "versions":[{"name":..., "status":"recommended"}]}]}
+    private static Map<String, String> recommendedTools(Path idfDir) {
+        Map<String, String> result = new LinkedHashMap<>();
+        Path toolsJson = idfDir.resolve("tools").resolve("tools.json");
+        if (!Files.exists(toolsJson)) return result;
+        try {
+            JsonObject root = new Gson().fromJson(Files.readString(toolsJson), JsonObject.class);
+            if (root == null || !root.has("tools")) return result;
+            for (JsonElement tool : root.getAsJsonArray("tools")) {
+                JsonObject t = tool.getAsJsonObject();
+                if (!t.has("name") || !t.has("versions")) continue;
+                for (JsonElement version : t.getAsJsonArray("versions")) {
+                    JsonObject v = version.getAsJsonObject();
+                    if (v.has("status") && v.get("status").getAsString().equals("recommended")) {
+                        result.put(t.get("name").getAsString(), v.get("name").getAsString());
+                    }
+                }
+            }
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            System.err.println("⚠️ Ignoring unreadable " + toolsJson + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    // IDF_PATH, the installer's frameworks/ folder and the usual manual install locations
+    private static List<Path> candidateIdfDirs() {
+        List<Path> dirs = new ArrayList<>();
+        String idfPath = System.getenv("IDF_PATH");
+        if (idfPath != null && !idfPath.isBlank()) dirs.add(Paths.get(idfPath));
+        for (Path parent : candidateParents()) dirs.addAll(list(parent));
+        Path home = Paths.get(System.getProperty("user.home"));
+        dirs.add(home.resolve("esp-idf"));
+        return dirs;
+    }
+
+    private static List<Path> candidateParents() {
+        Path home = Paths.get(System.getProperty("user.home"));
+        List<Path> parents = new ArrayList<>(List.of(ToolIndex.espressifRoot().resolve("frameworks"), home.resolve("esp")));
+        if (isWindows()) {
+            parents.add(Paths.get("C:", "Espressif", "frameworks"));
+        } else {
+            parents.add(Paths.get("/opt", "espressif"));
+        }
+        return parents;
+    }
+
+    // Cheap: a handful of stats, no walk. Adding or removing an IDF or a tool version changes a parent mtime.
+    private static String fingerprint() {
+        StringBuilder sb = new StringBuilder().append(System.getenv("IDF_PATH")).append('\n');
+        List<Path> roots = new ArrayList<>(candidateParents());
+        Path toolsRoot = ToolIndex.espressifRoot().resolve("tools");
+        roots.add(toolsRoot);
+        roots.addAll(list(toolsRoot));
+        for (Path root : roots) {
+            sb.append(root).append('=');
+            try {
+                sb.append(Files.getLastModifiedTime(root).toMillis());
+            } catch (IOException e) {
+                sb.append("missing");
+            }
+            sb.append('\n');
+        }
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static boolean isValidIdf(Path dir) {
+        return Files.isDirectory(dir.resolve("tools")) && Files.isDirectory(dir.resolve("components"))
+                && Files.exists(dir.resolve(isWindows() ? "export.bat" : "export.sh"));
+    }
+
+    private static List<Path> list(Path dir) {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> children = Files.list(dir)) {
+            return children.filter(Files::isDirectory).sorted().toList();
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static IdfInstallIndex readCache() {
+        if (!Files.exists(CACHE_PATH)) return null;
+        try {
+            IdfInstallIndex index = new Gson().fromJson(Files.readString(CACHE_PATH), IdfInstallIndex.class);
+            return index != null && index.format == FORMAT_VERSION ? index : null;
+        } catch (IOException | JsonParseException e) {
+            System.err.println("⚠️ Ignoring unreadable IDF index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized void save() {
+        try {
+            Files.createDirectories(CACHE_PATH.getParent());
+            Files.writeString(CACHE_PATH, new GsonBuilder().setPrettyPrinting().serializeNulls().create().toJson(this));
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to save IDF index to " + CACHE_PATH + ": " + e.getMessage());
+        }
+    }
+
+    @SafeVarargs
+    private static <T> T firstNonNull(T... values) {
+        for (T value : values) if (value != null) return value;
+        return null;
+    }
+
+    private static String exe(String name) {
+        return isWindows() ? name + ".exe" : name;
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase().contains("win");
+    }
+}
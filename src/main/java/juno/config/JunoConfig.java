@@ -64,14 +64,17 @@ public class JunoConfig {
                 INSTANCE.loadFrom(parsed);
 
                 // Push values to JunoPaths
-                JunoPaths.idfPath = INSTANCE.idfPath;
-                JunoPaths.idfPyPath = INSTANCE.idfPyPath;
-                JunoPaths.pythonPath = INSTANCE.pythonPath;
-                JunoPaths.pythonExecutablePath = INSTANCE.pythonExecutablePath;
-                JunoPaths.toolchainPath = INSTANCE.toolchainPath;
-                JunoPaths.cMakePath = INSTANCE.cMakePath;
-                JunoPaths.ninjaPath = INSTANCE.ninjaPath;
-                JunoPaths.serialPort = INSTANCE.serialPort;
+                JunoPaths.set("idfPath", INSTANCE.idfPath);
+                JunoPaths.set("idfPyPath", INSTANCE.idfPyPath);
+                JunoPaths.set("pythonPath", INSTANCE.pythonPath);
+                JunoPaths.set("pythonExecutablePath", INSTANCE.pythonExecutablePath);
+                JunoPaths.set("toolchainPath", INSTANCE.toolchainPath);
+                JunoPaths.set("cMakePath", INSTANCE.cMakePath);
+                JunoPaths.set("ninjaPath", INSTANCE.ninjaPath);
+                JunoPaths.set("serialPort", INSTANCE.serialPort);
+
+                // The config holds only a subset; the rest comes from the detection cache
+                JunoPaths.resolveMissing();
 
                 System.out.println("✅ Loaded config from: " + CONFIG_PATH);
             } else {
@@ -80,14 +83,14 @@ public class JunoConfig {
                 if (!JunoPaths.isInitialized()) JunoPaths.init();  // internally calls JunoDetector
 
                 // Copy detected values to config
-                INSTANCE.idfPath = JunoPaths.idfPath;
-                INSTANCE.idfPyPath = JunoPaths.idfPyPath;
-                INSTANCE.pythonPath = JunoPaths.pythonPath;
-                INSTANCE.pythonExecutablePath = JunoPaths.pythonExecutablePath;
-                INSTANCE.toolchainPath = JunoPaths.toolchainPath;
-                INSTANCE.cMakePath = JunoPaths.cMakePath;
-                INSTANCE.ninjaPath = JunoPaths.ninjaPath;
-                INSTANCE.serialPort = JunoPaths.serialPort;
+                INSTANCE.idfPath = JunoPaths.get("idfPath");
+                INSTANCE.idfPyPath = JunoPaths.get("idfPyPath");
+                INSTANCE.pythonPath = JunoPaths.get("pythonPath");
+                INSTANCE.pythonExecutablePath = JunoPaths.get("pythonExecutablePath");
+                INSTANCE.toolchainPath = JunoPaths.get("toolchainPath");
+                INSTANCE.cMakePath = JunoPaths.get("cMakePath");
+                INSTANCE.ninjaPath = JunoPaths.get("ninjaPath");
+                INSTANCE.serialPort = JunoPaths.get("serialPort");
 
                 save(); // save detected config for next time
             }
@@ -124,7 +127,7 @@ public class JunoConfig {
             detectedPort = detectedPort.trim();
 
             INSTANCE.serialPort = detectedPort;
-            JunoPaths.serialPort = detectedPort;  // Keep JunoPaths in sync too
+            JunoPaths.setSerialPort(detectedPort);  // Keep JunoPaths in sync too
 
             try {
                 save();
@@ -135,7 +138,7 @@ public class JunoConfig {
 
         } else {
             System.err.println("❌ No serial port detected! Please connect your ESP32 and try again.");
-            System.exit(1);
+            throw new ConfigurationException("No serial port detected");
         }
         return detectedPort;
     }
@@ -19,27 +19,10 @@ public class JunoDetector {
             return idfPath;
         }
 
-        // 2. Search in common locations
-        List<Path> candidates = new ArrayList<>();
-
-        if (isWindows()) {
-            Path baseDir = Paths.get("C:", "Espressif", "frameworks");
-            if (Files.exists(baseDir)) {
-                try (Stream<Path> stream = Files.list(baseDir)) {
-                    stream.filter(Files::isDirectory).filter(p -> p.getFileName().toString().startsWith("esp-idf")).forEach(candidates::add);
-                } catch (IOException ignored) {
-                }
-            }
-        } else {
-            candidates.add(Paths.get(System.getProperty("user.home"), "esp", "esp-idf"));
-            candidates.add(Paths.get(System.getProperty("user.home"), "esp-idf"));
-            candidates.add(Paths.get("/opt", "espressif", "esp-idf"));
-        }
-
-        for (Path p : candidates) {
-            if (isValidIdfPath(p.toString())) {
-                return p.toString();
-            }
+        // 2. The newest of the installed versions
+        List<IdfInstallIndex.IdfInstall> installs = IdfInstallIndex.load().installs();
+        if (!installs.isEmpty()) {
+            return installs.get(0).path();
         }
 
         return null; // No valid IDF path found
@@ -63,64 +46,43 @@ public class JunoDetector {
     }
 
     public static String detectToolchainBin() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String gccExecutable = os.contains("win") ? "xtensa-esp-elf-gcc.exe" : "xtensa-esp-elf-gcc";
-
-        // 2. Fallback to common path
-        File fallbackDir = os.contains("win") ? new File("C:\\Espressif\\tools\\xtensa-esp-elf") : new File(System.getProperty("user.home") + "/.espressif/tools/xtensa-esp-elf");
-
-        String found = searchIdfToolChainRecursively(fallbackDir, gccExecutable);
-        return found != null ? new File(found).getParentFile().getAbsolutePath() : null;
+        return findToolBinDir("xtensa-esp-elf", "xtensa-esp-elf-gcc");
     }
 
     public static String detectCcacheBin() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String ccacheExecutable = os.contains("win") ? "ccache.exe" : "ccache";
-
-        // 2. Fallback to common path
-        File fallbackDir = os.contains("win") ? new File("C:\\Espressif\\tools\\ccache") : new File(System.getProperty("user.home") + "/.espressif/tools/ccache");
-
-        String found = searchIdfToolChainRecursively(fallbackDir, ccacheExecutable);
-        return found != null ? new File(found).getParentFile().getAbsolutePath() : null;
+        return findToolBinDir("ccache", "ccache");
     }
 
+    /**
+     * Looks up an executable under tools/&lt;tool&gt; in the shared {@link ToolIndex} and returns its directory.
+     */
+    private static String findToolBinDir(String tool, String executable) {
+        return ToolIndex.espressif().findExecutable(exe(executable), toolsDir(tool))
+                .map(p -> p.getParent().toAbsolutePath().toString())
+                .orElse(null);
+    }
 
-    public static String detectPythonPath() {
-        String idfPath = System.getenv("IDF_PATH");
-        String idfToolsPath = System.getenv("IDF_TOOLS_PATH");
+    private static Path toolsDir(String tool) {
+        return ToolIndex.espressifRoot().resolve("tools").resolve(tool);
+    }
 
-        if (idfPath != null) {
-            File toolsRootDir = new File(idfPath);
-            return findEspressifPythonPathOnly(toolsRootDir);
-        }
-        File toolsRootDir = new File(idfToolsPath);
-        return findEspressifPythonPathOnly(toolsRootDir);
+    private static String exe(String name) {
+        return isWindows() ? name + ".exe" : name;
     }
 
-    public static String detectPythonExecutable() {
-        String idfPath = System.getenv("IDF_PATH");
-        String idfToolsPath = System.getenv("IDF_TOOLS_PATH");
 
-        if (idfPath != null) {
-            File toolsRootDir = new File(idfPath);
-            return findEspressifPythonPath(toolsRootDir);
-        }
-        File toolsRootDir = new File(idfToolsPath);
-        return findEspressifPythonPath(toolsRootDir);
+    public static String detectPythonPath() {
+        String executable = detectPythonExecutable();
+        return executable != null ? new File(executable).getParent() : null;
     }
 
-    public static String findEspressifPythonPathOnly(File toolchainBinDir) {
-        // Climb up to the Espressif root directory
-        File current = toolchainBinDir;
-        while (current != null && !current.getName().equalsIgnoreCase("Espressif")) {
-            current = current.getParentFile();
-        }
-
-        if (current == null || !current.exists()) {
-            return null;
-        }
+    public static String detectPythonExecutable() {
+        Path python = findPythonExecutable(ToolIndex.espressif());
+        if (python != null) return python.toString();
 
-        return searchForPythonPath(current);
+        // Installs outside the default root: climb from IDF_PATH as before
+        String idfPath = System.getenv("IDF_PATH");
+        return idfPath != null ? findEspressifPythonPath(new File(idfPath)) : null;
     }
 
     public static String findEspressifPythonPath(File toolchainBinDir) {
@@ -134,149 +96,49 @@ public class JunoDetector {
             return null;
         }
 
-        // Recursively search for python executable
+        // Look the python executable up in the tree's index
         return searchForPythonExecutable(current);
     }
 
 
-    private static String searchForPythonPath(File dir) {
-        File[] files = dir.listFiles();
-        if (files == null) return null;
-
-        for (File f : files) {
-            if (f.isDirectory()) {
-                String found = searchForPythonPath(f);
-                if (found != null) return found;
-            } else {
-                String name = f.getName().toLowerCase();
-                String os = System.getProperty("os.name").toLowerCase();
-                boolean isPython = os.contains("win") ? name.equals("python.exe") : (name.equals("python3") || name.equals("python"));
-                if (isPython) {
-                    return dir.getAbsolutePath();
-                }
-            }
-        }
-
-        return null;
-    }
-
     private static String searchForPythonExecutable(File dir) {
-        File[] files = dir.listFiles();
-        if (files == null) return null;
-
-        for (File f : files) {
-            if (f.isDirectory()) {
-                String found = searchForPythonExecutable(f);
-                if (found != null) return found;
-            } else {
-                String name = f.getName().toLowerCase();
-                String os = System.getProperty("os.name").toLowerCase();
-                boolean isPython = os.contains("win") ? name.equals("python.exe") : (name.equals("python3") || name.equals("python"));
-                if (isPython) return f.getAbsolutePath();
-            }
-        }
-
-        return null;
+        Path python = findPythonExecutable(ToolIndex.of(dir.toPath()));
+        return python != null ? python.toString() : null;
     }
 
-    private static File findBinDir(File dir) {
-        // Search upwards or known structure for bin folder
-        // Simple heuristic: if current dir ends with "bin", return it
-        if (dir.getName().equalsIgnoreCase("bin") && dir.exists()) {
-            return dir;
-        }
-        // else check for bin inside dir
-        File bin = new File(dir, "bin");
-        if (bin.exists()) {
-            return bin;
-        }
-        // climb up one level and try again, max 3 times
-        File parent = dir.getParentFile();
-        for (int i = 0; i < 3 && parent != null; i++) {
-            bin = new File(parent, "bin");
-            if (bin.exists()) return bin;
-            parent = parent.getParentFile();
-        }
-        return null;
-    }
-
-    public static String detectOpenOcdBin() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String exeName = os.contains("win") ? "openocd.exe" : "openocd";
-
-        File espToolsDir = os.contains("win") ? new File("C:\\Espressif\\tools") : new File(System.getProperty("user.home") + "/.espressif/tools");
-
-        String openOcdPath = searchFolderRecursively(espToolsDir, exeName);
-
-        return openOcdPath;
-    }
-
-    private static String searchFolderRecursively(File dir, String targetFileName) {
-        if (dir == null || !dir.exists() || !dir.isDirectory()) {
-            return null;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return null;
-
-        for (File f : files) {
-            if (f.isDirectory()) {
-                String result = searchFolderRecursively(f, targetFileName);
-                if (result != null) return result;
-            } else if (f.getName().equalsIgnoreCase(targetFileName) && f.canExecute()) {
-                return dir.getAbsolutePath();
+    /**
+     * Finds the python interpreter in an indexed tree, preferring the python_env virtualenvs.
+     */
+    private static Path findPythonExecutable(ToolIndex index) {
+        List<String> names = isWindows() ? List.of("python.exe") : List.of("python3", "python");
+        for (Path under : List.of(index.getRoot().resolve("python_env"), index.getRoot())) {
+            for (String name : names) {
+                Optional<Path> found = index.findAll(name, under).stream().max(SemVer.PATH_ORDER);
+                if (found.isPresent()) return found.get().toAbsolutePath();
             }
         }
         return null;
     }
 
-    public static String searchIdfToolChainRecursively(File dir, String targetFileName) {
-        if (dir == null || !dir.exists() || !dir.isDirectory()) {
-            return null;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return null;
-
-        List<File> fileList = Arrays.asList(files);
-        Collections.reverse(fileList);
-
-        Optional<String> result = fileList.stream().map(f -> {
-            if (f.isDirectory()) {
-                return searchIdfToolChainRecursively(f, targetFileName);
-            } else if (f.getName().equalsIgnoreCase(targetFileName) && f.canExecute()) {
-                return f.getAbsolutePath();
-            } else {
-                return null;
-            }
-        }).filter(path -> path != null).findFirst();
-
-        return result.orElse(null);
-    }
-
-    public static String searchFileRecursively(File dir, String targetFileName) {
-        if (dir == null || !dir.exists() || !dir.isDirectory()) {
-            return null;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return null;
-
-        for (File f : files) {
-            if (f.isDirectory()) {
-                String result = searchFileRecursively(f, targetFileName);
-                if (result != null) return result;
-            } else if (f.getName().equalsIgnoreCase(targetFileName) && f.canExecute()) {
-                return f.getAbsolutePath();
-            }
-        }
-        return null;
+    public static String detectOpenOcdBin() {
+        Path toolsRoot = ToolIndex.espressifRoot().resolve("tools");
+        return ToolIndex.espressif().findExecutable(exe("openocd"), toolsRoot)
+                .map(p -> p.getParent().toAbsolutePath().toString())
+                .orElse(null);
     }
 
     public static String detectEsp32Port() {
-        SerialPort[] ports = SerialPort.getCommPorts();
+        List<String> ports = detectEsp32Ports();
+        // If no common ESP32 port found, return null or fallback
+        return ports.isEmpty() ? null : ports.get(0);
+    }
 
-        for (SerialPort port : ports) {
+    /**
+     * Returns every serial port that looks like an ESP32 USB-to-serial adapter.
+     */
+    public static List<String> detectEsp32Ports() {
+        List<String> found = new ArrayList<>();
+        for (SerialPort port : SerialPort.getCommPorts()) {
             String desc = port.getDescriptivePortName().toLowerCase();
             String systemName = port.getSystemPortName().toLowerCase();
 
@@ -285,12 +147,10 @@ public class JunoDetector {
                     systemName.contains("ttyusb") ||     // Linux typical USB serial devices
                     systemName.contains("cu.usbserial") // macOS typical device name prefix
             ) {
-                return port.getSystemPortName();
+                found.add(port.getSystemPortName());
             }
         }
-
-        // If no common ESP32 port found, return null or fallback
-        return null;
+        return found;
     }
 
     public static String test() {
@@ -300,77 +160,40 @@ public class JunoDetector {
 
     public static String detectEspressifGitPath() {
         String os = System.getProperty("os.name").toLowerCase();
-        String espressifRoot;
-
-        if (os.contains("win")) {
-            espressifRoot = "C:\\Espressif\\tools\\idf-git";
-        } else if (os.contains("mac") || os.contains("nix") || os.contains("nux")) {
-            // Common install path for ESP-IDF on Unix-like systems
-            espressifRoot = System.getProperty("user.home") + "/.espressif/tools/idf-git";
-        } else {
+        if (!(os.contains("win") || os.contains("mac") || os.contains("nix") || os.contains("nux"))) {
             return null;
         }
-
-        File rootDir = new File(espressifRoot);
-        if (!rootDir.exists() || !rootDir.isDirectory()) {
-            return null;
-        }
-
-        File[] versions = rootDir.listFiles(File::isDirectory);
-        if (versions == null) return null;
-
-        for (File versionDir : versions) {
-            File candidate;
-            if (os.contains("win")) {
-                candidate = new File(versionDir, "cmd/git.exe");
-            } else {
-                candidate = new File(versionDir, "bin/git");  // Typical layout on Unix systems
-            }
-
-            if (candidate.exists() && candidate.canExecute()) {
-                return candidate.getAbsolutePath();
-            }
-        }
-
-        return null;
+        // Typical layout: <version>/cmd/git.exe on Windows, <version>/bin/git on Unix
+        Path git = findInVersionDir("idf-git", os.contains("win") ? "cmd/git.exe" : "bin/git");
+        return git != null ? git.toAbsolutePath().toString() : null;
     }
 
     public static String detectCmakePath() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String basePath = os.contains("win") ? "C:\\Espressif\\tools\\cmake" : System.getProperty("user.home") + "/.espressif/tools/cmake";
-
-        File baseDir = new File(basePath);
-        if (!baseDir.exists() || !baseDir.isDirectory()) return null;
-
-        File[] versions = baseDir.listFiles(File::isDirectory);
-        if (versions == null) return null;
-
-        for (File version : versions) {
-            File candidate = os.contains("win") ? new File(version, "cmake.exe") : new File(version, "bin/cmake");
-            if (candidate.exists() && candidate.canExecute()) {
-                return version.getAbsolutePath();
-            }
-        }
-        return null;
+        Path cmake = findInVersionDir("cmake", isWindows() ? "cmake.exe" : "bin/cmake");
+        return cmake != null ? versionDirOf("cmake", cmake).toAbsolutePath().toString() : null;
     }
 
     public static String detectNinjaPath() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String basePath = os.contains("win") ? "C:\\Espressif\\tools\\ninja" : System.getProperty("user.home") + "/.espressif/tools/ninja";
-
-        File baseDir = new File(basePath);
-        if (!baseDir.exists() || !baseDir.isDirectory()) return null;
+        Path ninja = findInVersionDir("ninja", isWindows() ? "ninja.exe" : "bin/ninja");
+        return ninja != null ? versionDirOf("ninja", ninja).toAbsolutePath().toString() : null;
+    }
 
-        File[] versions = baseDir.listFiles(File::isDirectory);
-        if (versions == null) return null;
+    /**
+     * Finds an executable at exactly tools/&lt;tool&gt;/&lt;version&gt;/&lt;relativePath&gt; using the index.
+     */
+    private static Path findInVersionDir(String tool, String relativePath) {
+        Path toolRoot = toolsDir(tool).toAbsolutePath().normalize();
+        Path rel = Paths.get(relativePath);
+        return ToolIndex.espressif().findAll(rel.getFileName().toString(), toolRoot).stream()
+                .filter(p -> p.equals(versionDirOf(tool, p).resolve(rel)))
+                .filter(Files::isExecutable)
+                .max(SemVer.PATH_ORDER)
+                .orElse(null);
+    }
 
-        for (File version : versions) {
-            File candidate = os.contains("win") ? new File(version, "ninja.exe") : new File(version, "bin/ninja");
-            if (candidate.exists() && candidate.canExecute()) {
-                return version.getAbsolutePath();
-            }
-        }
-        return null;
+    private static Path versionDirOf(String tool, Path file) {
+        Path toolRoot = toolsDir(tool).toAbsolutePath().normalize();
+        return toolRoot.resolve(toolRoot.relativize(file).getName(0));
     }
 
 
@@ -388,65 +211,29 @@ public class JunoDetector {
 
 
     public static String detectXtensaGdbPath() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String gdbExecutable = os.contains("win") ? "xtensa-esp32-elf-gdb.exe" : "xtensa-esp32-elf-gdb";
-
-        File espToolsDir = os.contains("win") ? new File("C:\\Espressif\\tools\\xtensa-esp-elf-gdb") : new File(System.getProperty("user.home") + "/.espressif/tools/xtensa-esp-elf-gdb");
-
-        String gdbPath = searchFileRecursively(espToolsDir, gdbExecutable);
-        return gdbPath != null ? new File(gdbPath).getParent() : null; // return the bin directory
+        return findToolBinDir("xtensa-esp-elf-gdb", "xtensa-esp32-elf-gdb"); // return the bin directory
     }
 
     public static String detectXtensaToolchainPath() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String toolExecutable = os.contains("win") ? "xtensa-esp-elf-gcc.exe" : "xtensa-esp-elf-gcc";
-
-        File espToolsDir = os.contains("win") ? new File("C:\\Espressif\\tools\\xtensa-esp-elf") : new File(System.getProperty("user.home") + "/.espressif/tools/xtensa-esp-elf");
-
-        String toolPath = searchIdfToolChainRecursively(espToolsDir, toolExecutable);
-
-        if (toolPath != null) {
-            // toolPath is absolute path to executable, get parent dir = bin folder
-            return new File(toolPath).getParent();
-        }
-
-        return null;
+        return findToolBinDir("xtensa-esp-elf", "xtensa-esp-elf-gcc");
     }
 
     public static String detectDfuUtilBin() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String dfuUtilExecutable = os.contains("win") ? "dfu-util.exe" : "dfu-util";
-
-        File fallbackDir = os.contains("win") ? new File("C:\\Espressif\\tools\\dfu-util") : new File(System.getProperty("user.home") + "/.espressif/tools/dfu-util");
-
-        String found = searchIdfToolChainRecursively(fallbackDir, dfuUtilExecutable);
-        return found != null ? new File(found).getParentFile().getAbsolutePath() : null;
+        return findToolBinDir("dfu-util", "dfu-util");
     }
 
     public static String detectOpenOcdScriptsPath() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String targetFolder = "memory.tcl";
-
-        // Start from the root OpenOCD tools directory
-        File openocdRoot = os.contains("win") ? new File("C:\\Espressif\\tools\\openocd-esp32") : new File(System.getProperty("user.home") + "/.espressif/tools/openocd-esp32");
-
-        String scriptsPath = searchIdfToolChainRecursively(openocdRoot, targetFolder);
-        if (scriptsPath != null) {
-            File scriptsDir = new File(scriptsPath);
-            return scriptsDir.getParent();
-        }
-        return null;
+        // share/ is pruned from the index; the scripts sit next to bin/ as share/openocd/scripts
+        return ToolIndex.espressif().findExecutable(exe("openocd"), toolsDir("openocd-esp32"))
+                .map(bin -> bin.getParent().getParent().resolve(Paths.get("share", "openocd", "scripts")))
+                .filter(scripts -> Files.exists(scripts.resolve("memory.tcl")))
+                .map(scripts -> scripts.toAbsolutePath().toString())
+                .orElse(null);
     }
 
 
     public static String detectEspClangPath() {
-        String os = System.getProperty("os.name").toLowerCase();
-        String clangExecutable = os.contains("win") ? "clang.exe" : "clang";
-
-        File espClangRoot = os.contains("win") ? new File("C:\\Espressif\\tools\\esp-clang") : new File(System.getProperty("user.home") + "/.espressif/tools/esp-clang");
-
-        String pathToClang = searchFileRecursively(espClangRoot, clangExecutable);
-        return pathToClang != null ? new File(pathToClang).getParent() : null;  // returns .../esp-clang/bin
+        return findToolBinDir("esp-clang", "clang");  // returns .../esp-clang/bin
     }
 
     public static void printDetectedPaths() {
@@ -1,58 +1,262 @@
 package juno.config;
 
+import juno.jfr.DetectorEvent;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Detects (or loads from the detection cache, the config and juno.properties) where
+ * ESP-IDF and its tools are installed. The values are staged here and handed to the
+ * rest of Juno as an immutable {@link ToolchainEnvironment} via {@link #toolchain()}.
+ */
 public class JunoPaths {
 
     private static boolean initialized = false;
+    private static volatile ToolchainEnvironment toolchain;
+
+    private static String idfPath;
+    private static String pythonPath;
+    private static String pythonExecutablePath;
+    private static String toolchainPath;
+    private static String serialPort;
+    private static String gitPath;
+    private static String xtensaGdbPath;
+    private static String xtensaToolchainPath;
+    private static String espClangPath;
+    private static String cMakePath;
+    private static String openOcdBin;
+    private static String ninjaPath;
+    private static String idfPyPath;
+    private static String cCacheBinPath;
+    private static String dfuUtilBinPath;
+    private static String openOcdScriptsPath;
+
+    private static final Map<String, Callable<String>> DETECTORS = new LinkedHashMap<>();
+
+    static {
+        DETECTORS.put("idfPath", JunoDetector::detectIdfPath);
+        DETECTORS.put("pythonPath", JunoDetector::detectPythonPath);
+        DETECTORS.put("pythonExecutablePath", JunoDetector::detectPythonExecutable);
+        DETECTORS.put("toolchainPath", JunoDetector::detectToolchainBin);
+        DETECTORS.put("serialPort", JunoDetector::detectEsp32Port);
+        DETECTORS.put("gitPath", JunoDetector::detectEspressifGitPath);
+        DETECTORS.put("xtensaGdbPath", JunoDetector::detectXtensaGdbPath);
+        DETECTORS.put("xtensaToolchainPath", JunoDetector::detectXtensaToolchainPath);
+        DETECTORS.put("espClangPath", JunoDetector::detectEspClangPath);
+        DETECTORS.put("cMakePath", JunoDetector::detectCmakePath);
+        DETECTORS.put("openOcdBin", JunoDetector::detectOpenOcdBin);
+        DETECTORS.put("ninjaPath", JunoDetector::detectNinjaPath);
+        DETECTORS.put("idfPyPath", JunoDetector::detectIdfPyPath);
+        DETECTORS.put("cCacheBinPath", JunoDetector::detectCcacheBin);
+        DETECTORS.put("dfuUtilBinPath", JunoDetector::detectDfuUtilBin);
+        DETECTORS.put("openOcdScriptsPath", JunoDetector::detectOpenOcdScriptsPath);
+    }
 
-    public static String idfPath;
-    public static String pythonPath;
-    public static String pythonExecutablePath;
-    public static String toolchainPath;
-    public static String serialPort;
-    public static String gitPath;
-    public static String xtensaGdbPath;
-    public static String xtensaToolchainPath;
-    public static String espClangPath;
-    public static String cMakePath;
-    public static String openOcdBin;
-    public static String ninjaPath;
-    public static String idfPyPath;
-    public static String cCacheBinPath;
-    public static String dfuUtilBinPath;
-    public static String openOcdScriptsPath;
+    // Upper bound for a single detector; a hung directory walk must not stall startup.
+    private static final long DETECT_TIMEOUT_MS = Long.getLong("juno.detectTimeoutMs", 15_000);
 
     public static void init() {
         if (initialized) return;
-        idfPath = JunoDetector.detectIdfPath();
-        pythonPath = JunoDetector.detectPythonPath();
-        pythonExecutablePath = JunoDetector.detectPythonExecutable();
-        toolchainPath = JunoDetector.detectToolchainBin();
-        serialPort = JunoDetector.detectEsp32Port();
-        gitPath = JunoDetector.detectEspressifGitPath();
-        xtensaGdbPath = JunoDetector.detectXtensaGdbPath();
-        xtensaToolchainPath = JunoDetector.detectXtensaToolchainPath();
-        espClangPath = JunoDetector.detectEspClangPath();
-        cMakePath = JunoDetector.detectCmakePath();
-        openOcdBin = JunoDetector.detectOpenOcdBin();
-        ninjaPath = JunoDetector.detectNinjaPath();
-        idfPyPath = JunoDetector.detectIdfPyPath();
-        cCacheBinPath = JunoDetector.detectCcacheBin();
-        dfuUtilBinPath = JunoDetector.detectDfuUtilBin();
-        openOcdScriptsPath = JunoDetector.detectOpenOcdScriptsPath();
+        assign(resolve(DETECTORS.keySet()));
         ensureJunoPropertiesTemplate();
         loadPropertiesOverrides();
         validatePaths();
         initialized = true;
     }
 
+    /**
+     * Fills only the fields that are still unset, e.g. after JunoConfig loaded its subset.
+     * Uses the detection cache, so on a warm start nothing is scanned. Does not validate.
+     */
+    public static void resolveMissing() {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String name : DETECTORS.keySet()) {
+            String value = get(name);
+            if (value == null || value.isBlank() || value.equals("null")) missing.add(name);
+        }
+        if (!missing.isEmpty()) assign(resolve(missing));
+    }
+
+    /**
+     * Returns cached values whose fingerprint is still valid and re-detects only the rest.
+     */
+    private static Map<String, String> resolve(Set<String> names) {
+        DetectionCache cache = DetectionCache.load();
+        Map<String, String> resolved = cache.lookup(names);
+        Set<String> stale = new LinkedHashSet<>(names);
+        stale.removeAll(resolved.keySet());
+
+        if (!stale.isEmpty()) {
+            // An index walked before the change (e.g. in the daemon) would re-detect the old values
+            if (cache.toolsChanged(stale)) ToolIndex.invalidate();
+            Map<String, String> detected = detectAll(stale);
+            // Timed-out or failed detectors are absent from the map and stay uncached
+            detected.forEach(cache::put);
+            resolved.putAll(detected);
+            cache.save();
+        }
+        System.out.println("♻️ Detection cache: " + (names.size() - stale.size()) + " hit(s), "
+                + stale.size() + " re-detected");
+        return resolved;
+    }
+
+    /**
+     * Snapshot of the current values. Cached until a value changes.
+     */
+    public static ToolchainEnvironment toolchain() {
+        ToolchainEnvironment current = toolchain;
+        if (current == null) {
+            current = new ToolchainEnvironment(idfPath,
+                    ToolchainEnvironment.readIdfVersion(idfPath), idfPyPath, pythonPath, pythonExecutablePath,
+                    toolchainPath, gitPath, xtensaGdbPath, xtensaToolchainPath, espClangPath, cMakePath, openOcdBin,
+                    ninjaPath, cCacheBinPath, dfuUtilBinPath, openOcdScriptsPath);
+            toolchain = current;
+        }
+        return current;
+    }
+
+    public static String getSerialPort() {
+        return serialPort;
+    }
+
+    public static void setSerialPort(String port) {
+        serialPort = port;
+    }
+
+    private static void assign(Map<String, String> values) {
+        values.forEach(JunoPaths::set);
+    }
+
+    /**
+     * Sets one value by field name, e.g. from JunoConfig.
+     */
+    static void set(String name, String value) {
+        toolchain = null;
+        switch (name) {
+            case "idfPath" -> idfPath = value;
+            case "pythonPath" -> pythonPath = value;
+            case "pythonExecutablePath" -> pythonExecutablePath = value;
+            case "toolchainPath" -> toolchainPath = value;
+            case "serialPort" -> serialPort = value;
+            case "gitPath" -> gitPath = value;
+            case "xtensaGdbPath" -> xtensaGdbPath = value;
+            case "xtensaToolchainPath" -> xtensaToolchainPath = value;
+            case "espClangPath" -> espClangPath = value;
+            case "cMakePath" -> cMakePath = value;
+            case "openOcdBin" -> openOcdBin = value;
+            case "ninjaPath" -> ninjaPath = value;
+            case "idfPyPath" -> idfPyPath = value;
+            case "cCacheBinPath" -> cCacheBinPath = value;
+            case "dfuUtilBinPath" -> dfuUtilBinPath = value;
+            case "openOcdScriptsPath" -> openOcdScriptsPath = value;
+            default -> throw new IllegalArgumentException("Unknown JunoPaths field: " + name);
+        }
+    }
+
+    static String get(String name) {
+        return switch (name) {
+            case "idfPath" -> idfPath;
+            case "pythonPath" -> pythonPath;
+            case "pythonExecutablePath" -> pythonExecutablePath;
+            case "toolchainPath" -> toolchainPath;
+            case "serialPort" -> serialPort;
+            case "gitPath" -> gitPath;
+            case "xtensaGdbPath" -> xtensaGdbPath;
+            case "xtensaToolchainPath" -> xtensaToolchainPath;
+            case "espClangPath" -> espClangPath;
+            case "cMakePath" -> cMakePath;
+            case "openOcdBin" -> openOcdBin;
+            case "ninjaPath" -> ninjaPath;
+            case "idfPyPath" -> idfPyPath;
+            case "cCacheBinPath" -> cCacheBinPath;
+            case "dfuUtilBinPath" -> dfuUtilBinPath;
+            case "openOcdScriptsPath" -> openOcdScriptsPath;
+            default -> throw new IllegalArgumentException("Unknown JunoPaths field: " + name);
+        };
+    }
+
+    /**
+     * Runs the named detectors concurrently on virtual threads and returns the results keyed by field name.
+     * A detector that fails or exceeds {@code juno.detectTimeoutMs} is left out of the result.
+     */
+    private static Map<String, String> detectAll(Set<String> names) {
+        Map<String, String> results = new HashMap<>();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+
+        // Not try-with-resources: close() would wait for a timed-out walk that ignores interrupts.
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Map<String, Future<String>> futures = new LinkedHashMap<>();
+            for (String name : names) {
+                Callable<String> detector = DETECTORS.get(name);
+                futures.put(name, executor.submit(() -> {
+                    long t0 = System.nanoTime();
+                    DetectorEvent event = new DetectorEvent();
+                    event.detector = name;
+                    event.begin();
+                    event.failed = true;
+                    try {
+                        String value = detector.call();
+                        event.result = value;
+                        event.failed = false;
+                        return value;
+                    } finally {
+                        timings.put(name, System.nanoTime() - t0);
+                        event.commit();
+                    }
+                }));
+            }
+
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(DETECT_TIMEOUT_MS);
+            for (Map.Entry<String, Future<String>> entry : futures.entrySet()) {
+                Future<String> future = entry.getValue();
+                try {
+                    results.put(entry.getKey(), future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    System.err.println("⚠️ Detection of " + entry.getKey() + " timed out after " + DETECT_TIMEOUT_MS + " ms");
+                } catch (ExecutionException e) {
+                    System.err.println("⚠️ Detection of " + entry.getKey() + " failed: " + e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        printTimings(timings, System.nanoTime() - start);
+        return results;
+    }
+
+    private static void printTimings(Map<String, Long> timings, long totalNanos) {
+        System.out.println("⏱ Detection finished in " + TimeUnit.NANOSECONDS.toMillis(totalNanos) + " ms");
+        timings.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> System.out.printf("   %-22s %6d ms%n", e.getKey(), TimeUnit.NANOSECONDS.toMillis(e.getValue())));
+    }
+
     private static void loadPropertiesOverrides() {
         Path propPath = Paths.get(System.getProperty("user.dir"), ".juno", "juno.properties");
         if (!Files.exists(propPath)) return;
@@ -93,6 +297,7 @@ public class JunoPaths {
                 dfuUtilBinPath = props.getProperty("juno.dfuUtilBinPath", dfuUtilBinPath);
             if (openOcdScriptsPath == null || openOcdScriptsPath.equals("null"))
                 openOcdScriptsPath = props.getProperty("juno.openOcdScriptsPath", openOcdScriptsPath);
+            toolchain = null;
 
         } catch (IOException e) {
             System.err.println("⚠️ Failed to read juno.properties: " + e.getMessage());
@@ -123,7 +328,7 @@ public class JunoPaths {
             System.err.println("  2. Or, ensure your ESP-IDF environment is properly set in your system.\n");
             System.err.println("Tip: This file is auto-generated and can be edited manually anytime.");
 
-            System.exit(1);
+            throw new ConfigurationException("Missing required path: juno." + name);
         }
     }
 
@@ -0,0 +1,70 @@
+package juno.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Per-project settings kept in the project's juno_project.json, e.g.
+ * {@code {"idfVersion": "5.2", "target": "esp32s3"}}. Unset values are null.
+ */
+public class ProjectSettings {
+
+    private static final String FILE_NAME = "juno_project.json";
+
+    // Fields are populated by Gson
+    private String idfVersion;
+    private String target;
+
+    /**
+     * Reads the settings of a project; a missing or unreadable file gives empty settings.
+     */
+    public static ProjectSettings load(File projectDir) {
+        Path file = projectDir.toPath().resolve(FILE_NAME);
+        if (!Files.exists(file)) return new ProjectSettings();
+        try {
+            ProjectSettings parsed = new Gson().fromJson(Files.readString(file), ProjectSettings.class);
+            return parsed != null ? parsed : new ProjectSettings();
+        } catch (IOException | JsonParseException e) {
+            System.err.println("⚠️ Ignoring unreadable " + file + ": " + e.getMessage());
+            return new ProjectSettings();
+        }
+    }
+
+    /**
+     * Writes the settings, or removes the file when nothing is set.
+     */
+    public void save(File projectDir) throws IOException {
+        Path file = projectDir.toPath().resolve(FILE_NAME);
+        if (idfVersion == null && target == null) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(this));
+    }
+
+    public String getIdfVersion() {
+        return blankToNull(idfVersion);
+    }
+
+    public void setIdfVersion(String idfVersion) {
+        this.idfVersion = blankToNull(idfVersion);
+    }
+
+    public String getTarget() {
+        return blankToNull(target);
+    }
+
+    public void setTarget(String target) {
+        this.target = blankToNull(target);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,106 @@
+package juno.config;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lenient semantic version as found in ESP-IDF and tool directory names:
+ * "v5.3.1", "esp-idf-v5.2", "v5.4-dev", "esp-13.2.0_20240530", "3.24.0".
+ * A pre-release suffix sorts before the release, in ESP-IDF's order dev &lt; alpha &lt;
+ * beta &lt; rc and numerically within a kind ("-rc2" &lt; "-rc10"); any other suffix
+ * (e.g. a build date) only breaks ties.
+ */
+public record SemVer(int major, int minor, int patch, String preRelease, String build) implements Comparable<SemVer> {
+
+    private static final Pattern VERSION = Pattern.compile("(\\d+)(?:\\.(\\d+))?(?:\\.(\\d+))?(?:-((?:dev|rc|beta|alpha)\\w*))?(.*)");
+    private static final List<String> PRE_RELEASE_KINDS = List.of("dev", "alpha", "beta", "rc");
+    private static final Pattern PRE_RELEASE = Pattern.compile("(dev|alpha|beta|rc)(\\d*)(.*)");
+    private static final Comparator<SemVer> ORDER = Comparator.comparingInt(SemVer::major)
+            .thenComparingInt(SemVer::minor)
+            .thenComparingInt(SemVer::patch)
+            // A release is newer than its pre-releases
+            .thenComparing(SemVer::preRelease, Comparator.nullsLast(SemVer::comparePreRelease))
+            .thenComparing(SemVer::build, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * Orders paths element by element, comparing elements that look like versions by
+     * version and the rest by name, so ".../cmake/3.30.2" sorts after ".../cmake/3.9.0".
+     */
+    public static final Comparator<Path> PATH_ORDER = (a, b) -> {
+        int n = Math.min(a.getNameCount(), b.getNameCount());
+        for (int i = 0; i < n; i++) {
+            String x = a.getName(i).toString();
+            String y = b.getName(i).toString();
+            if (x.equals(y)) continue;
+            SemVer vx = parse(x);
+            SemVer vy = parse(y);
+            int c = vx != null && vy != null ? vx.compareTo(vy) : 0;
+            return c != 0 ? c : x.compareTo(y);
+        }
+        return Integer.compare(a.getNameCount(), b.getNameCount());
+    };
+
+    /**
+     * Parses the first version number in {@code text}, or returns null if there is none.
+     */
+    public static SemVer parse(String text) {
+        if (text == null) return null;
+        Matcher m = VERSION.matcher(text);
+        if (!m.find()) return null;
+        String build = m.group(5).isEmpty() ? null : m.group(5);
+        return new SemVer(component(m.group(1)),
+                m.group(2) != null ? component(m.group(2)) : 0,
+                m.group(3) != null ? component(m.group(3)) : 0,
+                m.group(4), build);
+    }
+
+    // Directory names can hold digit runs of any length; those beyond int sort last
+    private static int component(String digits) {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static boolean sameComponent(int value, String digits) {
+        return BigInteger.valueOf(value).equals(new BigInteger(digits));
+    }
+
+    /**
+     * True if this version satisfies a pin such as "5", "5.2", "v5.2.1" or "latest":
+     * every component given in the pin must match.
+     */
+    public boolean matches(String pin) {
+        if (pin == null || pin.isBlank() || pin.equalsIgnoreCase("latest")) return true;
+        Matcher m = Pattern.compile("(\\d+)(?:\\.(\\d+))?(?:\\.(\\d+))?").matcher(pin);
+        if (!m.find()) return false;
+        return sameComponent(major, m.group(1))
+                && (m.group(2) == null || sameComponent(minor, m.group(2)))
+                && (m.group(3) == null || sameComponent(patch, m.group(3)));
+    }
+
+    // Kind first, then its number ("rc" = "rc0"), then whatever follows as text
+    private static int comparePreRelease(String a, String b) {
+        Matcher x = PRE_RELEASE.matcher(a);
+        Matcher y = PRE_RELEASE.matcher(b);
+        if (!x.matches() || !y.matches()) return a.compareTo(b);
+        int c = Integer.compare(PRE_RELEASE_KINDS.indexOf(x.group(1)), PRE_RELEASE_KINDS.indexOf(y.group(1)));
+        if (c == 0) c = new BigInteger("0" + x.group(2)).compareTo(new BigInteger("0" + y.group(2)));
+        return c != 0 ? c : x.group(3).compareTo(y.group(3));
+    }
+
+    @Override
+    public int compareTo(SemVer other) {
+        return ORDER.compare(this, other);
+    }
+
+    @Override
+    public String toString() {
+        return major + "." + minor + "." + patch + (preRelease != null ? "-" + preRelease : "");
+    }
+}
@@ -0,0 +1,160 @@
+package juno.config;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-pass index of an Espressif tools tree (~/.espressif or C:\Espressif).
+ * The tree is walked once and every file is recorded under its lower-cased name,
+ * so detectors look tools up by name instead of walking the tree again.
+ */
+public final class ToolIndex {
+
+    // Large subtrees that never contain a tool we detect.
+    private static final Set<String> PRUNED_DIRS = Set.of("site-packages", ".git", "include", "share", "__pycache__");
+    // Pruned only directly below the root: the IDF sources and the download cache.
+    private static final Set<String> PRUNED_TOP_LEVEL = Set.of("frameworks", "dist");
+
+    private static final Map<Path, CompletableFuture<ToolIndex>> CACHE = new ConcurrentHashMap<>();
+
+    private final Path root;
+    private final Map<String, List<Path>> byName = new HashMap<>();
+    private int fileCount;
+
+    /**
+     * Returns the index for the given root, walking it on first use.
+     * Concurrent callers for the same root wait for the single walk, which runs outside
+     * the map so lookups of other roots are not held up by it.
+     */
+    public static ToolIndex of(Path root) {
+        Path key = root.toAbsolutePath().normalize();
+        CompletableFuture<ToolIndex> index = CACHE.get(key);
+        if (index != null) return index.join();
+
+        CompletableFuture<ToolIndex> walk = new CompletableFuture<>();
+        index = CACHE.putIfAbsent(key, walk);
+        if (index != null) return index.join();
+        try {
+            walk.complete(new ToolIndex(key));
+        } catch (RuntimeException e) {
+            CACHE.remove(key, walk); // let the next caller try again
+            walk.completeExceptionally(e);
+            throw e;
+        }
+        return walk.join();
+    }
+
+    /**
+     * Returns the index of the default Espressif root.
+     */
+    public static ToolIndex espressif() {
+        return of(espressifRoot());
+    }
+
+    /**
+     * Resolves the Espressif root: IDF_TOOLS_PATH if set, otherwise the installer default.
+     */
+    public static Path espressifRoot() {
+        String idfToolsPath = System.getenv("IDF_TOOLS_PATH");
+        if (idfToolsPath != null && !idfToolsPath.isBlank() && Files.isDirectory(Paths.get(idfToolsPath))) {
+            return Paths.get(idfToolsPath);
+        }
+        return isWindows() ? Paths.get("C:\\Espressif") : Paths.get(System.getProperty("user.home"), ".espressif");
+    }
+
+    /**
+     * Drops all cached indexes, e.g. after tools were installed or removed.
+     */
+    public static void invalidate() {
+        CACHE.clear();
+    }
+
+    private ToolIndex(Path root) {
+        this.root = root;
+        long start = System.nanoTime();
+        if (Files.isDirectory(root)) {
+            walk();
+        }
+        System.out.println("🗂 Indexed " + fileCount + " files under " + root + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private void walk() {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (dir.equals(root)) return FileVisitResult.CONTINUE;
+                    String name = dir.getFileName().toString().toLowerCase(Locale.ROOT);
+                    if (PRUNED_DIRS.contains(name)) return FileVisitResult.SKIP_SUBTREE;
+                    if (dir.getParent().equals(root) && PRUNED_TOP_LEVEL.contains(name)) return FileVisitResult.SKIP_SUBTREE;
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                    byName.computeIfAbsent(name, k -> new ArrayList<>(1)).add(file);
+                    fileCount++;
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to index " + root + ": " + e.getMessage());
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public int size() {
+        return fileCount;
+    }
+
+    /**
+     * Returns every indexed file with the given name (case-insensitive) below {@code under}.
+     */
+    public List<Path> findAll(String fileName, Path under) {
+        List<Path> hits = byName.getOrDefault(fileName.toLowerCase(Locale.ROOT), List.of());
+        Path base = under.toAbsolutePath().normalize();
+        List<Path> result = new ArrayList<>(hits.size());
+        for (Path p : hits) {
+            if (p.startsWith(base)) result.add(p);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the executable with the given name below {@code under}. When several versions
+     * are installed the path with the highest version wins ({@link SemVer#PATH_ORDER}).
+     */
+    public Optional<Path> findExecutable(String fileName, Path under) {
+        return findAll(fileName, under).stream()
+                .filter(Files::isExecutable)
+                .max(SemVer.PATH_ORDER);
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase().contains("win");
+    }
+}
@@ -0,0 +1,112 @@
+package juno.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Immutable snapshot of one ESP-IDF installation and the tools that go with it.
+ * Produced by detection ({@link JunoPaths#toolchain()}) and passed explicitly to the
+ * builder and flasher, so builds against different IDF versions can run side by side
+ * in one JVM without sharing mutable state.
+ */
+public record ToolchainEnvironment(
+        String idfPath,
+        String idfVersion,
+        String idfPyPath,
+        String pythonPath,
+        String pythonExecutablePath,
+        String toolchainPath,
+        String gitPath,
+        String xtensaGdbPath,
+        String xtensaToolchainPath,
+        String espClangPath,
+        String cMakePath,
+        String openOcdBin,
+        String ninjaPath,
+        String cCacheBinPath,
+        String dfuUtilBinPath,
+        String openOcdScriptsPath) {
+
+    private static final Pattern VERSION_PART = Pattern.compile("set\\(IDF_VERSION_(MAJOR|MINOR|PATCH)\\s+(\\d+)\\)");
+
+    public boolean hasIdf() {
+        return present(idfPath);
+    }
+
+    /**
+     * The Python interpreter of the IDF virtualenv. A bare "python" resolves against the
+     * exported PATH, which starts with that virtualenv.
+     */
+    public String python() {
+        return present(pythonExecutablePath) ? pythonExecutablePath : "python";
+    }
+
+    /**
+     * The tool directories to put on PATH, joined with {@code separator}.
+     */
+    public String toolPath(String separator) {
+        return Stream.of(xtensaGdbPath, xtensaToolchainPath, espClangPath, cMakePath, openOcdBin, ninjaPath,
+                        idfPyPath, cCacheBinPath, dfuUtilBinPath, pythonPath)
+                .filter(ToolchainEnvironment::present)
+                .collect(Collectors.joining(separator));
+    }
+
+    public String toolPath() {
+        return toolPath(File.pathSeparator);
+    }
+
+    /**
+     * SHA-256 over everything that changes what a build produces.
+     */
+    public String identity() {
+        String identity = String.join("\n", String.valueOf(idfPath), idfVersion, String.valueOf(toolchainPath),
+                String.valueOf(cMakePath), String.valueOf(ninjaPath), String.valueOf(pythonExecutablePath));
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(identity.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The IDF version from version.txt, or from tools/cmake/version.cmake in git checkouts.
+     */
+    public static String readIdfVersion(String idfPath) {
+        if (!present(idfPath)) return "none";
+        try {
+            Path versionTxt = Paths.get(idfPath, "version.txt");
+            if (Files.exists(versionTxt)) {
+                return Files.readString(versionTxt).trim();
+            }
+            Path versionCmake = Paths.get(idfPath, "tools", "cmake", "version.cmake");
+            if (Files.exists(versionCmake)) {
+                Map<String, String> parts = new LinkedHashMap<>();
+                Matcher m = VERSION_PART.matcher(Files.readString(versionCmake));
+                while (m.find()) parts.put(m.group(1), m.group(2));
+                return "v" + String.join(".", List.of(
+                        parts.getOrDefault("MAJOR", "0"), parts.getOrDefault("MINOR", "0"), parts.getOrDefault("PATCH", "0")));
+            }
+        } catch (IOException ignored) {
+        }
+        return "unknown";
+    }
+
+    static boolean present(String value) {
+        return value != null && !value.isBlank() && !value.equals("null");
+    }
+}
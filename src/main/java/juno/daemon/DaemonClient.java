@@ -0,0 +1,133 @@
+package juno.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * Thin client side of {@link JunoDaemon}: forwards CLI arguments and streams the output back.
+ */
+public class DaemonClient {
+
+    // readFrames() result for a declined command; not a real exit code
+    private static final int DECLINED = Integer.MIN_VALUE;
+
+    /**
+     * Runs the command in the daemon if one is listening, with this JVM's juno.* properties.
+     *
+     * @return the command's exit code, or empty when no daemon is running, or it declined
+     * because this shell's environment differs from its own, and the caller should execute
+     * in-process
+     */
+    public static OptionalInt tryForward(String[] args) {
+        SocketChannel channel = connect();
+        if (channel == null) return OptionalInt.empty();
+
+        try (channel;
+             DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+             DataInputStream in = new DataInputStream(Channels.newInputStream(channel))) {
+            out.writeByte(JunoDaemon.REQ_RUN);
+            out.writeInt(args.length);
+            for (String arg : args) out.writeUTF(arg);
+            JunoDaemon.writeMap(out, JunoDaemon.junoProperties());
+            Map<String, String> env = new HashMap<>();
+            for (String name : JunoDaemon.FORWARDED_ENV) {
+                String value = System.getenv(name);
+                if (value != null) env.put(name, value);
+            }
+            JunoDaemon.writeMap(out, env);
+            out.flush();
+            int exitCode = readFrames(in, false);
+            return exitCode == DECLINED ? OptionalInt.empty() : OptionalInt.of(exitCode);
+        } catch (IOException e) {
+            System.err.println("⚠️ Lost connection to Juno daemon: " + e.getMessage());
+            return OptionalInt.of(1);
+        }
+    }
+
+    public static boolean ping() {
+        return simpleRequest(JunoDaemon.REQ_PING);
+    }
+
+    public static boolean stop() {
+        return simpleRequest(JunoDaemon.REQ_STOP);
+    }
+
+    private static boolean simpleRequest(byte type) {
+        SocketChannel channel = connect();
+        if (channel == null) return false;
+
+        try (channel;
+             DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+             DataInputStream in = new DataInputStream(Channels.newInputStream(channel))) {
+            out.writeByte(type);
+            out.flush();
+            return readFrames(in, type == JunoDaemon.REQ_STOP) == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copies output frames until the exit frame. A connection closed before it only means
+     * success for a stop request ({@code eofIsExit}); otherwise the daemon died mid-command.
+     */
+    private static int readFrames(DataInputStream in, boolean eofIsExit) throws IOException {
+        while (true) {
+            byte type;
+            try {
+                type = in.readByte();
+            } catch (EOFException e) {
+                if (eofIsExit) return 0; // daemon exited after a stop request
+                System.err.println("❌ Juno daemon died while running the command. See " + JunoDaemon.getLogPath());
+                return 1;
+            }
+            switch (type) {
+                case JunoDaemon.FRAME_STDOUT -> copy(in, System.out);
+                case JunoDaemon.FRAME_STDERR -> copy(in, System.err);
+                case JunoDaemon.FRAME_EXIT -> {
+                    return in.readInt();
+                }
+                case JunoDaemon.FRAME_DECLINED -> {
+                    System.err.println("⚠️ Environment differs from the Juno daemon's (" + in.readUTF() + "), running in-process.");
+                    return DECLINED;
+                }
+                default -> throw new IOException("Unknown daemon frame type: " + type);
+            }
+        }
+    }
+
+    private static void copy(DataInputStream in, PrintStream target) throws IOException {
+        byte[] data = in.readNBytes(in.readInt());
+        target.write(data, 0, data.length);
+        target.flush();
+    }
+
+    private static SocketChannel connect() {
+        if (!Files.exists(JunoDaemon.getSocketPath())) return null;
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(JunoDaemon.getSocketPath()));
+            return channel;
+        } catch (IOException | UnsupportedOperationException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null; // stale socket file or no AF_UNIX support
+        }
+    }
+}
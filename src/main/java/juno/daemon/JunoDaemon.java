@@ -0,0 +1,291 @@
+package juno.daemon;
+
+import juno.cli.JunoCLI;
+import juno.config.ConfigurationException;
+import juno.config.JunoConfig;
+import juno.config.JunoPaths;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-lived Juno process that keeps the resolved JunoPaths and a warm JVM around.
+ * JunoCLI forwards commands over a Unix domain socket in .juno/ and gets the
+ * command's stdout/stderr streamed back, followed by an exit code.
+ *
+ * <p>A command runs with the client's -Djuno.* properties in place of the daemon's. The
+ * daemon cannot take on the client's environment, so it declines commands from a shell
+ * whose {@link #FORWARDED_ENV} differ from its own and the client runs them in-process.
+ *
+ * <p>Wire format (big-endian, {@link DataOutputStream}):
+ * request = type byte, then for {@link #REQ_RUN} an int argc and argc UTF strings, then
+ * the client's juno.* properties and FORWARDED_ENV variables, each as an int count and
+ * UTF name/value pairs;
+ * response = frames of type byte + payload: stdout/stderr carry int length + bytes,
+ * exit carries an int code, declined a UTF list of the differing variables.
+ */
+public class JunoDaemon {
+
+    private static final Path SOCKET_PATH = Paths.get(System.getProperty("user.dir"), ".juno", "juno.sock");
+    private static final Path LOG_PATH = Paths.get(System.getProperty("user.dir"), ".juno", "daemon.log");
+
+    static final byte REQ_RUN = 1;
+    static final byte REQ_PING = 2;
+    static final byte REQ_STOP = 3;
+
+    static final byte FRAME_STDOUT = 1;
+    static final byte FRAME_STDERR = 2;
+    static final byte FRAME_EXIT = 3;
+    static final byte FRAME_DECLINED = 4;
+
+    // Variables the tools and detectors read; a command must see the client's values
+    static final List<String> FORWARDED_ENV = List.of("PATH", "HOME", "IDF_PATH", "IDF_TOOLS_PATH",
+            "IDF_PYTHON_ENV_PATH", "IDF_CCACHE_ENABLE", "CCACHE_DIR", "ESPPORT", "ESPBAUD",
+            "HTTP_PROXY", "HTTPS_PROXY", "NO_PROXY", "http_proxy", "https_proxy", "no_proxy");
+
+    // Commands print through System.out/err, which are process-wide; run one at a time.
+    private static final ReentrantLock COMMAND_LOCK = new ReentrantLock();
+
+    public static Path getSocketPath() {
+        return SOCKET_PATH;
+    }
+
+    public static Path getLogPath() {
+        return LOG_PATH;
+    }
+
+    /**
+     * Runs the daemon in the foreground until a stop request arrives.
+     */
+    public static void run() throws IOException {
+        warmUp();
+
+        Files.createDirectories(SOCKET_PATH.getParent());
+        Files.deleteIfExists(SOCKET_PATH); // stale socket from a crashed daemon
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(SOCKET_PATH));
+            System.out.println("🟢 Juno daemon listening on " + SOCKET_PATH + " (pid " + ProcessHandle.current().pid() + ")");
+
+            while (true) {
+                SocketChannel client = server.accept();
+                Thread.ofVirtual().name("juno-daemon-client").start(() -> handle(client));
+            }
+        } finally {
+            Files.deleteIfExists(SOCKET_PATH);
+            System.out.println("🔴 Juno daemon stopped.");
+        }
+    }
+
+    /**
+     * Spawns {@code juno daemon run} as a detached background JVM logging to .juno/daemon.log.
+     */
+    public static void startInBackground() throws IOException {
+        String javaBin = ProcessHandle.current().info().command()
+                .orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+
+        List<String> command = new ArrayList<>();
+        command.add(javaBin);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(JunoCLI.class.getName());
+        command.add("daemon");
+        command.add("run");
+
+        Files.createDirectories(LOG_PATH.getParent());
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(new File(System.getProperty("user.dir")));
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.appendTo(LOG_PATH.toFile()));
+        pb.redirectInput(ProcessBuilder.Redirect.from(new File(isWindows() ? "NUL" : "/dev/null")));
+        Process process = pb.start();
+
+        // Wait until the socket answers so the next CLI call is already forwarded
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline && process.isAlive()) {
+            if (DaemonClient.ping()) {
+                System.out.println("✅ Juno daemon started (pid " + process.pid() + "), log: " + LOG_PATH);
+                return;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        System.err.println("❌ Juno daemon did not come up. See " + LOG_PATH);
+    }
+
+    private static void warmUp() {
+        long start = System.nanoTime();
+        if (Files.exists(JunoConfig.getConfigPath())) {
+            JunoConfig.load();
+        } else {
+            JunoPaths.resolveMissing();
+        }
+        System.out.println("♨️ Daemon warm-up took " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static void handle(SocketChannel channel) {
+        try (channel;
+             DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+             DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel))) {
+
+            byte type = in.readByte();
+            switch (type) {
+                case REQ_PING -> writeExit(out, 0);
+                case REQ_STOP -> {
+                    writeExit(out, 0);
+                    // accept() is blocking; exiting the JVM is the simplest way to unblock it
+                    Files.deleteIfExists(SOCKET_PATH);
+                    System.exit(0);
+                }
+                case REQ_RUN -> {
+                    int argc = in.readInt();
+                    String[] args = new String[argc];
+                    for (int i = 0; i < argc; i++) args[i] = in.readUTF();
+                    Map<String, String> properties = readMap(in);
+                    Map<String, String> env = readMap(in);
+                    List<String> differing = FORWARDED_ENV.stream()
+                            .filter(name -> !Objects.equals(env.get(name), System.getenv(name)))
+                            .toList();
+                    if (!differing.isEmpty()) {
+                        out.writeByte(FRAME_DECLINED);
+                        out.writeUTF(String.join(", ", differing));
+                        out.flush();
+                        return;
+                    }
+                    writeExit(out, execute(args, properties, out));
+                }
+                default -> writeExit(out, 2);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Daemon client error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes {@code map} as an int count and UTF name/value pairs.
+     */
+    static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> e : map.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeUTF(e.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < count; i++) map.put(in.readUTF(), in.readUTF());
+        return map;
+    }
+
+    /**
+     * The juno.* system properties of this JVM.
+     */
+    static Map<String, String> junoProperties() {
+        Map<String, String> properties = new HashMap<>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("juno.")) properties.put(name, System.getProperty(name));
+        }
+        return properties;
+    }
+
+    private static int execute(String[] args, Map<String, String> properties, DataOutputStream out) {
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        COMMAND_LOCK.lock();
+        // The command sees the client's juno.* properties only; commands run one at a time
+        Map<String, String> daemonProperties = junoProperties();
+        daemonProperties.keySet().forEach(System::clearProperty);
+        properties.forEach(System::setProperty);
+        try (PrintStream clientOut = new PrintStream(new FrameOutputStream(out, FRAME_STDOUT), true, StandardCharsets.UTF_8);
+             PrintStream clientErr = new PrintStream(new FrameOutputStream(out, FRAME_STDERR), true, StandardCharsets.UTF_8)) {
+            System.setOut(clientOut);
+            System.setErr(clientErr);
+            try {
+                JunoCLI.dispatch(args);
+                return 0;
+            } catch (ConfigurationException e) {
+                return 1; // already reported by the command
+            } catch (RuntimeException e) {
+                System.err.println("❌ " + e.getMessage());
+                return 1;
+            }
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            properties.keySet().forEach(System::clearProperty);
+            daemonProperties.forEach(System::setProperty);
+            COMMAND_LOCK.unlock();
+        }
+    }
+
+    private static void writeExit(DataOutputStream out, int code) throws IOException {
+        synchronized (out) {
+            out.writeByte(FRAME_EXIT);
+            out.writeInt(code);
+            out.flush();
+        }
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase().contains("win");
+    }
+
+    /**
+     * Wraps everything written to it into stdout/stderr frames on the client socket.
+     */
+    private static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte frameType;
+
+        FrameOutputStream(DataOutputStream out, byte frameType) {
+            this.out = out;
+            this.frameType = frameType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            synchronized (out) {
+                out.writeByte(frameType);
+                out.writeInt(len);
+                out.write(b, off, len);
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() {
+            // The socket stream is owned by handle()
+        }
+    }
+}
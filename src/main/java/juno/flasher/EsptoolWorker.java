@@ -0,0 +1,526 @@
+package juno.flasher;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived Python process that drives esptool through its Python API, so the
+ * interpreter start-up, esptool import and (between commands on the same port)
+ * the RAM stub upload and baud negotiation are paid once instead of per flash.
+ *
+ * <p>Protocol: one JSON object per line. Java sends {@code {"id":n,"cmd":...}};
+ * the worker answers with any number of {@code {"id":n,"log":"..."}} lines and then
+ * exactly one {@code {"id":n,"ok":true|false,"error":"..."}}. Any executable that
+ * speaks this protocol can stand in for the worker, e.g. a fake script in tests.
+ *
+ * <p>After a write or verify the worker keeps the port (the board stays in the stub) so
+ * the next flash to it skips the stub upload. The port is handed back with a hard reset
+ * by {@link #release}, which JunoSerial triggers before opening it, after the port was
+ * idle for -Djuno.esptoolHoldSec (default 30 s), or when the worker quits.
+ *
+ * <p>Every command has the same deadlines as a flashing subprocess
+ * (-Djuno.processTimeoutSec, -Djuno.inactivityTimeoutSec); a worker that misses one is
+ * killed and the command fails with an IOException, so callers can fall back to esptool.
+ */
+public final class EsptoolWorker implements Closeable {
+
+    private static final Path SCRIPT_PATH = Paths.get(System.getProperty("user.dir"), ".juno", "esptool_worker.py");
+    // One per interpreter and port: ports flash in parallel and flashes with different toolchains do not mix
+    private static final Map<String, EsptoolWorker> SHARED = new HashMap<>();
+
+    private final Gson gson = new Gson();
+    private final Process process;
+    private final BufferedWriter toWorker;
+    private final BufferedReader fromWorker;
+    private final Object writeLock = new Object();
+    // Ports whose loader the worker keeps open, with a counter that invalidates pending idle releases
+    private final Map<String, Long> heldPorts = new ConcurrentHashMap<>();
+    private final AtomicLong holdGeneration = new AtomicLong();
+    private Duration timeout = Duration.ofSeconds(Long.getLong("juno.processTimeoutSec", 1800));
+    private Duration inactivityTimeout = Duration.ofSeconds(Long.getLong("juno.inactivityTimeoutSec", 300));
+    private Duration hold = Duration.ofSeconds(Long.getLong("juno.esptoolHoldSec", 30));
+    private int nextId = 1;
+
+    private EsptoolWorker(Process process) {
+        this.process = process;
+        toWorker = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        fromWorker = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Starts a worker from an arbitrary command that implements the protocol and waits for
+     * it to answer a ping.
+     */
+    public static EsptoolWorker start(List<String> command, Map<String, String> env) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        if (env != null) {
+            pb.environment().clear();
+            pb.environment().putAll(env);
+        }
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        EsptoolWorker worker = new EsptoolWorker(pb.start());
+
+        JsonObject ping = new JsonObject();
+        ping.addProperty("cmd", "ping");
+        try {
+            worker.request(ping, line -> {
+            });
+        } catch (IOException e) {
+            worker.kill();
+            throw e;
+        }
+        return worker;
+    }
+
+    /**
+     * Returns the JVM-wide worker for the given interpreter and port, starting it on first use.
+     */
+    public static synchronized EsptoolWorker shared(String pythonExecutable, Map<String, String> env, String port) throws IOException {
+        String key = pythonExecutable + "|" + port;
+        EsptoolWorker worker = SHARED.get(key);
+        if (worker != null && worker.isAlive()) return worker;
+
+        writeScript();
+        worker = start(List.of(pythonExecutable, "-u", SCRIPT_PATH.toString()), env);
+        SHARED.put(key, worker);
+        Runtime.getRuntime().addShutdownHook(new Thread(worker::close));
+        return worker;
+    }
+
+    /**
+     * Makes shared workers hand {@code port} back, e.g. before JunoSerial opens it.
+     */
+    public static void releaseShared(String port) {
+        List<EsptoolWorker> workers;
+        synchronized (EsptoolWorker.class) {
+            workers = new ArrayList<>(SHARED.values());
+        }
+        for (EsptoolWorker worker : workers) {
+            if (!worker.isAlive() || !worker.holds(port)) continue;
+            try {
+                worker.release(port, line -> {
+                });
+            } catch (IOException e) {
+                System.err.println("⚠️ Could not release " + port + " from the esptool worker: " + e.getMessage());
+                worker.close();
+            }
+        }
+    }
+
+    /**
+     * Drops the shared workers, e.g. after one misbehaved, so the next call starts a fresh one.
+     */
+    public static synchronized void discardShared() {
+        SHARED.values().forEach(EsptoolWorker::close);
+        SHARED.clear();
+    }
+
+    /**
+     * Overrides the per-command wall-clock and inactivity (no output) deadlines.
+     */
+    public void setTimeouts(Duration timeout, Duration inactivityTimeout) {
+        this.timeout = timeout;
+        this.inactivityTimeout = inactivityTimeout;
+    }
+
+    /**
+     * How long an idle port stays held before it is released; zero releases right after each command.
+     */
+    public void setHold(Duration hold) {
+        this.hold = hold;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Whether the worker still holds a connection (and the stub) on {@code port}.
+     */
+    public boolean holds(String port) {
+        return heldPorts.containsKey(port);
+    }
+
+    /**
+     * Writes the given partitions, reusing the port connection and stub if the worker already holds them.
+     * The port stays held afterwards.
+     */
+    public void write(String port, String baud, FlashImage image, List<FlashImage.Partition> partitions,
+                      Consumer<String> log) throws IOException {
+        JsonObject cmd = connection("write", port, baud, image);
+        cmd.add("files", files(partitions));
+        expectOk(portRequest(port, cmd, log));
+    }
+
+    /**
+     * Compares the board contents with the image using esptool's on-device MD5. The port stays held afterwards.
+     */
+    public boolean verify(String port, String baud, FlashImage image, Consumer<String> log) throws IOException {
+        JsonObject cmd = connection("verify", port, baud, image);
+        cmd.add("files", files(image.partitions()));
+        return portRequest(port, cmd, log).get("ok").getAsBoolean();
+    }
+
+    /**
+     * Hard-resets the board into its application and releases the port. Does nothing if
+     * the worker does not hold it.
+     */
+    public void release(String port, Consumer<String> log) throws IOException {
+        if (heldPorts.remove(port) == null) return;
+        JsonObject cmd = new JsonObject();
+        cmd.addProperty("cmd", "reset");
+        cmd.addProperty("port", port);
+        expectOk(request(cmd, log));
+    }
+
+    // A command that leaves the loader open on success; the worker closes it on errors
+    private JsonObject portRequest(String port, JsonObject cmd, Consumer<String> log) throws IOException {
+        heldPorts.remove(port);
+        JsonObject response = request(cmd, log);
+        if (response.get("ok").getAsBoolean()) hold(port);
+        return response;
+    }
+
+    private void hold(String port) {
+        long generation = holdGeneration.incrementAndGet();
+        heldPorts.put(port, generation);
+        Duration idle = hold;
+        if (idle.isZero()) {
+            releaseQuietly(port, generation);
+            return;
+        }
+        Thread.ofVirtual().name("esptool-hold-" + port).start(() -> {
+            try {
+                Thread.sleep(idle);
+                releaseQuietly(port, generation);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    // Releases the port unless a later command on it renewed the hold
+    private void releaseQuietly(String port, long generation) {
+        if (!isAlive() || !Long.valueOf(generation).equals(heldPorts.get(port))) return;
+        try {
+            release(port, line -> {
+            });
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Sends one command and blocks until its final response, passing log lines to {@code log}.
+     * Kills the worker and throws if the command misses its deadline or the worker exits.
+     */
+    public synchronized JsonObject request(JsonObject cmd, Consumer<String> log) throws IOException {
+        int id = nextId++;
+        cmd.addProperty("id", id);
+        String name = cmd.has("cmd") ? cmd.get("cmd").getAsString() : "?";
+        synchronized (writeLock) {
+            toWorker.write(gson.toJson(cmd));
+            toWorker.newLine();
+            toWorker.flush();
+        }
+
+        long start = System.nanoTime();
+        AtomicLong lastOutput = new AtomicLong(start);
+        String[] expired = new String[1];
+        Thread watchdog = Thread.ofVirtual().name("esptool-watchdog-" + id).start(() -> {
+            try {
+                while (process.isAlive()) {
+                    Thread.sleep(pollMillis());
+                    long now = System.nanoTime();
+                    if (now - start > timeout.toNanos()) {
+                        expired[0] = "timed out after " + timeout.toSeconds() + " s";
+                    } else if (now - lastOutput.get() > inactivityTimeout.toNanos()) {
+                        expired[0] = "produced no output for " + inactivityTimeout.toSeconds() + " s";
+                    }
+                    if (expired[0] != null) {
+                        kill();
+                        return;
+                    }
+                }
+            } catch (InterruptedException ignored) {
+                // the command finished
+            }
+        });
+
+        try {
+            String line;
+            while ((line = readLine()) != null) {
+                lastOutput.set(System.nanoTime());
+                JsonObject msg;
+                try {
+                    msg = gson.fromJson(line, JsonObject.class);
+                } catch (JsonParseException e) {
+                    log.accept(line); // stray print from a library
+                    continue;
+                }
+                if (msg == null || !isFor(msg, id)) continue;
+                if (msg.has("log")) {
+                    log.accept(msg.get("log").getAsString());
+                } else if (msg.has("ok")) {
+                    return msg;
+                }
+            }
+        } finally {
+            watchdog.interrupt();
+        }
+        // Its output is gone, so the worker is of no further use
+        heldPorts.clear();
+        kill();
+        try {
+            watchdog.join();
+            process.waitFor(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (expired[0] != null) throw new IOException("esptool worker " + name + " " + expired[0]);
+        throw new IOException("esptool worker exited unexpectedly during " + name);
+    }
+
+    private static boolean isFor(JsonObject msg, int id) {
+        JsonElement msgId = msg.get("id");
+        return msgId != null && msgId.isJsonPrimitive() && msgId.getAsJsonPrimitive().isNumber() && msgId.getAsInt() == id;
+    }
+
+    // null once the worker is gone, including when the watchdog closed its output
+    private String readLine() {
+        try {
+            return fromWorker.readLine();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private long pollMillis() {
+        return Math.max(10, Math.min(500, Math.min(timeout.toMillis(), inactivityTimeout.toMillis()) / 10));
+    }
+
+    /**
+     * Asks the worker to quit, which resets the boards it still holds, and stops it.
+     */
+    @Override
+    public void close() {
+        if (!process.isAlive()) return;
+        try {
+            JsonObject quit = new JsonObject();
+            quit.addProperty("cmd", "quit");
+            synchronized (writeLock) {
+                toWorker.write(gson.toJson(quit));
+                toWorker.newLine();
+                toWorker.flush();
+            }
+            if (!process.waitFor(5, TimeUnit.SECONDS)) process.destroy();
+            process.waitFor(2, TimeUnit.SECONDS);
+        } catch (IOException ignored) {
+            process.destroy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        heldPorts.clear();
+    }
+
+    private void kill() {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private static JsonObject connection(String name, String port, String baud, FlashImage image) {
+        JsonObject cmd = new JsonObject();
+        cmd.addProperty("cmd", name);
+        cmd.addProperty("port", port);
+        cmd.addProperty("baud", Integer.parseInt(baud));
+        cmd.addProperty("chip", image.chip());
+        JsonArray flashArgs = new JsonArray();
+        image.writeFlashArgs().forEach(flashArgs::add);
+        cmd.add("flash_args", flashArgs);
+        return cmd;
+    }
+
+    private static JsonArray files(List<FlashImage.Partition> partitions) {
+        JsonArray files = new JsonArray();
+        for (FlashImage.Partition p : partitions) {
+            JsonArray pair = new JsonArray();
+            pair.add(p.offset());
+            pair.add(p.file().toAbsolutePath().toString());
+            files.add(pair);
+        }
+        return files;
+    }
+
+    private static void expectOk(JsonObject response) throws IOException {
+        if (!response.get("ok").getAsBoolean()) {
+            String error = response.has("error") ? response.get("error").getAsString() : "unknown error";
+            throw new IOException("esptool worker: " + error);
+        }
+    }
+
+    private static void writeScript() throws IOException {
+        Files.createDirectories(SCRIPT_PATH.getParent());
+        byte[] content = workerScript().getBytes(StandardCharsets.UTF_8);
+        if (Files.exists(SCRIPT_PATH) && Arrays.equals(Files.readAllBytes(SCRIPT_PATH), content)) return;
+        Files.write(SCRIPT_PATH, content);
+    }
+
+    private static String workerScript() {
+        return """
+                # Generated by Juno. Drives esptool over a JSON-lines protocol on stdin/stdout.
+                import argparse
+                import json
+                import sys
+
+                import esptool
+                from esptool.cmds import detect_chip, verify_flash, write_flash
+                from esptool.util import flash_size_bytes
+
+                loaders = {}
+                real_stdout = sys.stdout
+
+
+                def send(obj):
+                    real_stdout.write(json.dumps(obj) + "\\n")
+                    real_stdout.flush()
+
+
+                class LogStream:
+                    def __init__(self, rid):
+                        self.rid = rid
+                        self.buf = ""
+
+                    def write(self, text):
+                        self.buf += text.replace("\\r", "\\n")
+                        while "\\n" in self.buf:
+                            line, self.buf = self.buf.split("\\n", 1)
+                            if line.strip():
+                                send({"id": self.rid, "log": line})
+
+                    def flush(self):
+                        pass
+
+
+                def close_port(port):
+                    esp = loaders.pop(port, None)
+                    if esp is not None:
+                        try:
+                            esp._port.close()
+                        except Exception:
+                            pass
+
+
+                def loader(port, baud, chip):
+                    esp = loaders.get(port)
+                    if esp is not None:
+                        try:
+                            esp.read_reg(esp.CHIP_DETECT_MAGIC_REG_ADDR)
+                            return esp  # stub still running, reuse it
+                        except Exception:
+                            close_port(port)
+                    esp = detect_chip(port, 115200, "default_reset")
+                    if chip not in ("auto", None) and esp.CHIP_NAME.lower().replace("-", "") != chip.lower().replace("-", ""):
+                        esp._port.close()
+                        raise esptool.FatalError("Expected %s but found %s" % (chip, esp.CHIP_NAME))
+                    esp = esp.run_stub()
+                    if baud > 115200:
+                        esp.change_baud(baud)
+                    loaders[port] = esp
+                    return esp
+
+
+                def flash_args(cmd):
+                    raw = cmd.get("flash_args", [])
+                    opts = {"flash_mode": "keep", "flash_size": "keep", "flash_freq": "keep"}
+                    for i in range(0, len(raw) - 1):
+                        if raw[i].startswith("--flash_"):
+                            opts[raw[i][2:]] = raw[i + 1]
+                    files = [(int(offset, 0), open(path, "rb")) for offset, path in cmd.get("files", [])]
+                    return argparse.Namespace(
+                        addr_filename=files, chip=cmd.get("chip", "auto"), erase_all=False, encrypt=False,
+                        encrypt_files=None, compress=None, no_compress=False, verify=False, diff="no",
+                        ignore_flash_encryption_efuse_setting=False, force=False, no_progress=False, no_stub=False,
+                        **opts)
+
+
+                def handle(cmd):
+                    name = cmd.get("cmd")
+                    if name == "ping":
+                        return
+                    if name == "reset":
+                        esp = loaders.get(cmd["port"])
+                        if esp is not None:
+                            esp.hard_reset()
+                        close_port(cmd["port"])
+                        return
+                    if name == "close":
+                        close_port(cmd["port"])
+                        return
+                    esp = loader(cmd["port"], cmd.get("baud", 460800), cmd.get("chip", "auto"))
+                    args = flash_args(cmd)
+                    try:
+                        if args.flash_size not in ("keep", "detect"):
+                            esp.flash_set_parameters(flash_size_bytes(args.flash_size))
+                        if name == "write":
+                            write_flash(esp, args)
+                        elif name == "verify":
+                            verify_flash(esp, args)
+                        else:
+                            raise ValueError("unknown command: %s" % name)
+                    finally:
+                        for _, f in args.addr_filename:
+                            f.close()
+
+
+                for raw_line in sys.stdin:
+                    if not raw_line.strip():
+                        continue
+                    cmd = json.loads(raw_line)
+                    if cmd.get("cmd") == "quit":
+                        break
+                    rid = cmd.get("id")
+                    sys.stdout = LogStream(rid)
+                    try:
+                        handle(cmd)
+                        send({"id": rid, "ok": True})
+                    except Exception as e:
+                        if cmd.get("port"):
+                            close_port(cmd["port"])
+                        send({"id": rid, "ok": False, "error": str(e)})
+                    finally:
+                        sys.stdout = real_stdout
+
+                # Start the firmware on every board still held in the stub
+                for p in list(loaders):
+                    try:
+                        loaders[p].hard_reset()
+                    except Exception:
+                        pass
+                    close_port(p)
+                """;
+    }
+}
@@ -0,0 +1,88 @@
+package juno.flasher;
+
+import com.fazecast.jSerialComm.SerialPort;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers, per board, the SHA-256 of the image last written at each flash offset
+ * (.juno/flash_history.json), so an identical image does not have to be flashed again.
+ */
+public class FlashHistory {
+
+    private static final Path HISTORY_PATH = Paths.get(System.getProperty("user.dir"), ".juno", "flash_history.json");
+
+    private final Map<String, Map<String, String>> boards;
+
+    private FlashHistory(Map<String, Map<String, String>> boards) {
+        this.boards = boards;
+    }
+
+    public static FlashHistory load() {
+        if (Files.exists(HISTORY_PATH)) {
+            try {
+                Map<String, Map<String, String>> boards = new Gson().fromJson(Files.readString(HISTORY_PATH),
+                        new TypeToken<Map<String, Map<String, String>>>() {
+                        }.getType());
+                if (boards != null) return new FlashHistory(new HashMap<>(boards));
+            } catch (IOException | JsonParseException e) {
+                System.err.println("⚠️ Ignoring unreadable flash history: " + e.getMessage());
+            }
+        }
+        return new FlashHistory(new HashMap<>());
+    }
+
+    /**
+     * Identifies the board on a port by its USB serial number, falling back to the port name.
+     */
+    public static String boardId(String portName) {
+        try {
+            String serial = SerialPort.getCommPort(portName).getSerialNumber();
+            if (serial != null && !serial.isBlank() && !serial.equalsIgnoreCase("Unknown")) {
+                return "sn:" + serial.trim();
+            }
+        } catch (RuntimeException ignored) {
+            // Port vanished or the native library is unavailable
+        }
+        return "port:" + portName;
+    }
+
+    /**
+     * Offset → SHA-256 of what was last written to the board, or null if unknown.
+     */
+    public synchronized Map<String, String> lastFlashed(String boardId) {
+        return boards.get(boardId);
+    }
+
+    public synchronized void record(String boardId, FlashImage image) {
+        Map<String, String> offsets = new HashMap<>();
+        for (FlashImage.Partition p : image.partitions()) offsets.put(p.offset(), p.sha256());
+        boards.put(boardId, offsets);
+    }
+
+    /**
+     * Forgets a board, e.g. after a flash failed half-way and its state is unknown.
+     */
+    public synchronized void forget(String boardId) {
+        boards.remove(boardId);
+    }
+
+    public synchronized void save() {
+        try {
+            Files.createDirectories(HISTORY_PATH.getParent());
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            Files.writeString(HISTORY_PATH, gson.toJson(boards));
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to save flash history to " + HISTORY_PATH + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package juno.flasher;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The set of images idf.py would flash, read from build/flasher_args.json,
+ * with the SHA-256 of every partition image.
+ */
+public class FlashImage {
+
+    // Sections of flasher_args.json that name a single image, as used by the idf.py *-flash targets
+    private static final List<String> ROLES = List.of("app", "bootloader", "partition-table", "otadata");
+
+    /**
+     * One image written at a flash offset, e.g. 0x1000 → bootloader/bootloader.bin.
+     * The role is "app", "bootloader", "partition-table", "otadata" or null.
+     */
+    public record Partition(String offset, Path file, String sha256, String role) {
+        public long size() {
+            try {
+                return Files.size(file);
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+    }
+
+    private final String chip;
+    private final List<Partition> partitions;
+    private final List<String> writeFlashArgs;
+    private final JsonObject esptoolArgs;
+
+    private FlashImage(String chip, List<Partition> partitions, List<String> writeFlashArgs, JsonObject esptoolArgs) {
+        this.chip = chip;
+        this.partitions = partitions;
+        this.writeFlashArgs = writeFlashArgs;
+        this.esptoolArgs = esptoolArgs;
+    }
+
+    /**
+     * Reads build/flasher_args.json and hashes the referenced images.
+     * Returns null if the project has not been built with idf.py yet.
+     */
+    public static FlashImage fromBuildDir(Path buildDir) throws IOException {
+        Path flasherArgs = buildDir.resolve("flasher_args.json");
+        if (!Files.exists(flasherArgs)) return null;
+
+        JsonObject json;
+        try {
+            json = new Gson().fromJson(Files.readString(flasherArgs), JsonObject.class);
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid " + flasherArgs + ": " + e.getMessage(), e);
+        }
+        if (json == null || !json.has("flash_files")) return null;
+
+        JsonObject esptoolArgs = json.has("extra_esptool_args") ? json.getAsJsonObject("extra_esptool_args") : new JsonObject();
+        String chip = esptoolArgs.has("chip") ? esptoolArgs.get("chip").getAsString() : "auto";
+
+        Map<String, String> roleByOffset = new HashMap<>();
+        for (String role : ROLES) {
+            if (json.has(role) && json.getAsJsonObject(role).has("offset")) {
+                roleByOffset.put(json.getAsJsonObject(role).get("offset").getAsString(), role);
+            }
+        }
+
+        List<String> writeFlashArgs = new ArrayList<>();
+        if (json.has("write_flash_args")) {
+            json.getAsJsonArray("write_flash_args").forEach(e -> writeFlashArgs.add(e.getAsString()));
+        }
+
+        List<Partition> partitions = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> entry : json.getAsJsonObject("flash_files").entrySet()) {
+            Path file = buildDir.resolve(entry.getValue().getAsString());
+            if (!Files.exists(file)) return null; // incomplete build
+            partitions.add(new Partition(entry.getKey(), file, sha256(file), roleByOffset.get(entry.getKey())));
+        }
+        return new FlashImage(chip, partitions, writeFlashArgs, esptoolArgs);
+    }
+
+    public String chip() {
+        return chip;
+    }
+
+    public List<Partition> partitions() {
+        return partitions;
+    }
+
+    public List<String> writeFlashArgs() {
+        return writeFlashArgs;
+    }
+
+    public long totalBytes() {
+        return partitions.stream().mapToLong(Partition::size).sum();
+    }
+
+    /**
+     * Arguments for {@code python -m esptool} that write only the given partitions,
+     * with the same chip, reset and flash settings idf.py would use.
+     */
+    public List<String> esptoolWriteArgs(String port, String baud, List<Partition> toWrite) {
+        List<String> args = new ArrayList<>(List.of("--chip", chip, "-p", port, "-b", baud));
+        if (esptoolArgs.has("before")) args.addAll(List.of("--before", esptoolArgs.get("before").getAsString()));
+        if (esptoolArgs.has("after")) args.addAll(List.of("--after", esptoolArgs.get("after").getAsString()));
+        if (esptoolArgs.has("stub") && !esptoolArgs.get("stub").getAsBoolean()) args.add("--no-stub");
+        args.add("write_flash");
+        args.addAll(writeFlashArgs);
+        for (Partition p : toWrite) {
+            args.add(p.offset());
+            args.add(p.file().toString());
+        }
+        return args;
+    }
+
+    /**
+     * Partitions whose hash differs from what was last written at the same offset.
+     */
+    public List<Partition> changedSince(Map<String, String> lastFlashed) {
+        List<Partition> changed = new ArrayList<>();
+        for (Partition p : partitions) {
+            if (lastFlashed == null || !p.sha256().equals(lastFlashed.get(p.offset()))) changed.add(p);
+        }
+        return changed;
+    }
+
+    // Memory-mapped so large app images are hashed without copying through heap buffers
+    static String sha256(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            md.update(buffer);
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
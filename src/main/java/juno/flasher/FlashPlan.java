@@ -0,0 +1,90 @@
+package juno.flasher;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The smallest flash operation that brings a board from what was last written to it
+ * up to the current image: nothing, one idf.py *-flash target, an esptool write of
+ * just the changed partitions, or a full {@code idf.py flash}.
+ */
+public class FlashPlan {
+
+    public enum Kind {
+        /** Every partition already matches. */
+        NONE,
+        /** A single image with its own idf.py target: app-flash, bootloader-flash, partition-table-flash. */
+        TARGET,
+        /** Several (but not all) partitions, written with esptool write_flash. */
+        PARTIAL,
+        /** Unknown board state or everything changed: idf.py flash. */
+        FULL
+    }
+
+    private final Kind kind;
+    private final List<FlashImage.Partition> toWrite;
+    private final FlashImage image;
+
+    private FlashPlan(Kind kind, List<FlashImage.Partition> toWrite, FlashImage image) {
+        this.kind = kind;
+        this.toWrite = toWrite;
+        this.image = image;
+    }
+
+    /**
+     * Picks the plan for an image given the offset → hash map last flashed to the board.
+     * A null image (not built by idf.py yet) or an unknown board always means a full flash.
+     */
+    public static FlashPlan choose(FlashImage image, Map<String, String> lastFlashed) {
+        if (image == null || lastFlashed == null) return full(image);
+
+        List<FlashImage.Partition> changed = image.changedSince(lastFlashed);
+        if (changed.isEmpty()) return new FlashPlan(Kind.NONE, List.of(), image);
+        if (changed.size() == image.partitions().size()) return full(image);
+        if (changed.size() == 1 && idfTarget(changed.get(0)) != null) return new FlashPlan(Kind.TARGET, changed, image);
+        return new FlashPlan(Kind.PARTIAL, changed, image);
+    }
+
+    public static FlashPlan full(FlashImage image) {
+        return new FlashPlan(Kind.FULL, image != null ? image.partitions() : List.of(), image);
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public List<FlashImage.Partition> toWrite() {
+        return toWrite;
+    }
+
+    /**
+     * The idf.py target for {@link Kind#TARGET} and {@link Kind#FULL} plans.
+     */
+    public String idfTarget() {
+        return kind == Kind.FULL ? "flash" : kind == Kind.TARGET ? idfTarget(toWrite.get(0)) : null;
+    }
+
+    public long bytesToWrite() {
+        return toWrite.stream().mapToLong(FlashImage.Partition::size).sum();
+    }
+
+    public String describe() {
+        String what = switch (kind) {
+            case NONE -> "nothing to write";
+            case TARGET, FULL -> "idf.py " + idfTarget();
+            case PARTIAL -> "esptool write_flash of " + toWrite.size() + " partition(s)";
+        };
+        if (image == null) return what;
+        return what + " (" + String.format("%,d", bytesToWrite()) + " of " + String.format("%,d", image.totalBytes()) + " bytes)";
+    }
+
+    private static String idfTarget(FlashImage.Partition partition) {
+        if (partition.role() == null) return null;
+        return switch (partition.role()) {
+            case "app" -> "app-flash";
+            case "bootloader" -> "bootloader-flash";
+            case "partition-table" -> "partition-table-flash";
+            default -> null;
+        };
+    }
+}
@@ -1,50 +1,403 @@
 package juno.flasher;
 
+import juno.builder.BuildScheduler;
+import juno.builder.BuildTarget;
+import juno.builder.IdfEnvironment;
+import juno.builder.JunoBatchBuilder;
+import juno.config.JunoPaths;
+import juno.config.ToolchainEnvironment;
+import juno.metrics.PhaseTimer;
+import juno.process.ProcessRunner;
+import juno.progress.ConsoleProgress;
+import juno.progress.OutputParser;
+import juno.progress.ProgressListener;
+
 import java.io.*;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 public class JunoFlasher {
 
-    public void flashProject(File projectDir) throws IOException, InterruptedException {
-        String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
-        ProcessBuilder pb = getProcessBuilder(projectDir, os);
-        Process process = pb.start();
+    private final ToolchainEnvironment toolchain;
+    private BuildTarget target;
+    private boolean verifyOnDevice;
+    private ProgressListener progressListener;
+    private PhaseTimer timer = new PhaseTimer();
+
+    /**
+     * Uses the toolchain detected for this run.
+     */
+    public JunoFlasher() {
+        this(JunoPaths.toolchain());
+    }
+
+    /**
+     * Builds and flashes with an explicit toolchain, e.g. a pinned IDF version.
+     */
+    public JunoFlasher(ToolchainEnvironment toolchain) {
+        this.toolchain = toolchain;
+    }
+
+    /**
+     * Builds and flashes for this chip instead of the project's configured target.
+     */
+    public void setTarget(BuildTarget target) {
+        this.target = target;
+    }
+
+    /**
+     * When set, an image is only treated as already flashed after esptool's
+     * on-device MD5 check (verify_flash) confirms the board contents.
+     */
+    public void setVerifyOnDevice(boolean verifyOnDevice) {
+        this.verifyOnDevice = verifyOnDevice;
+    }
+
+    /**
+     * Receives typed build and flash progress events instead of the default console
+     * rendering (one live progress line on a terminal).
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Records the duration of internal phases (e.g. build script generation) in {@code timer}.
+     */
+    public void setPhaseTimer(PhaseTimer timer) {
+        this.timer = timer;
+    }
+
+    /**
+     * Outcome of flashing one board in {@link #flashAll}.
+     */
+    public record FlashResult(String port, boolean success, String operation, long bytesWritten, long millis, String error) {
+    }
+
+    public void flashProject(File projectDir, String port) throws IOException, InterruptedException {
+        flashProject(projectDir, port, false);
+    }
+
+    /**
+     * Builds and flashes the project by launching idf.py directly with the cached
+     * export.sh environment. The build is skipped when the inputs match the last
+     * successful build, unless {@code forceBuild} is set. Falls back to the generated
+     * build script if the environment cannot be captured.
+     */
+    public void flashProject(File projectDir, String port, boolean forceBuild) throws IOException, InterruptedException {
+        awaitBuild(buildAsync(projectDir, forceBuild));
+        flashBuilt(projectDir, port);
+    }
+
+    /**
+     * Starts the idf.py build without waiting for it, so the caller can do other work
+     * (port detection, ...) meanwhile. Completes immediately when the inputs match the
+     * last successful build, unless {@code forceBuild} is set. If the ESP-IDF environment
+     * cannot be captured nothing is built here and {@link #flashBuilt} falls back to the
+     * generated script, which builds and flashes in one go.
+     */
+    public CompletableFuture<Void> buildAsync(File projectDir, boolean forceBuild) throws IOException {
+        Map<String, String> env = IdfEnvironment.forIdf(toolchain);
+        if (env == null) return CompletableFuture.completedFuture(null);
+
+        // Interactive build: ahead of any queued batch builds
+        ProgressListener listener = listener();
+        BuildScheduler.Job job = new BuildScheduler.Job(projectDir.getName(), projectDir, target(projectDir), toolchain,
+                BuildScheduler.Priority.HIGH, forceBuild, new OutputParser(listener));
+        return BuildScheduler.shared().submit(job).handle((outcome, error) -> {
+            endProgress(listener);
+            if (error != null) throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            return null;
+        });
+    }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            reader.lines().forEach(System.out::println);
+    /**
+     * Flashes the already built project to one board.
+     */
+    @SuppressWarnings("try") // PhaseTimer.Phase resource
+    public void flashBuilt(File projectDir, String port) throws IOException, InterruptedException {
+        Map<String, String> env = IdfEnvironment.forIdf(toolchain);
+        if (env == null) {
+            System.out.println("⚠️ Falling back to the generated build script.");
+            try (PhaseTimer.Phase ignored = timer.phase("scripts")) {
+                new JunoBatchBuilder(toolchain).writeBuildScripts(projectDir, port);
+            }
+            flashProject(projectDir);
+            return;
+        }
+
+        FlashHistory history = FlashHistory.load();
+        ProgressListener listener = listener();
+        try {
+            flashBoard(projectDir, env, port, history, worker(env, port, System.err::println), new OutputParser(listener));
+        } finally {
+            endProgress(listener);
+            history.save();
         }
+        System.out.println("✅ Flashing finished successfully.");
+    }
+
+    private BuildTarget target(File projectDir) {
+        return target != null ? target : BuildTarget.of(projectDir);
+    }
 
-        int exitCode = process.waitFor();
+    private ProgressListener listener() {
+        return progressListener != null ? progressListener : new ConsoleProgress();
+    }
+
+    private static void endProgress(ProgressListener listener) {
+        if (listener instanceof ConsoleProgress console) console.done();
+    }
 
-        if (exitCode != 0) {
-            throw new RuntimeException("Flashing failed with exit code: " + exitCode);
-        } else {
-            System.out.println("✅ Flashing finished successfully.");
+    /**
+     * Waits for a build started with {@link #buildAsync}, rethrowing its failure.
+     */
+    public static void awaitBuild(CompletableFuture<Void> build) throws IOException, InterruptedException {
+        try {
+            build.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            build.cancel(true);
+            throw e;
         }
     }
 
-    private static ProcessBuilder getProcessBuilder(File projectDir, String os) throws FileNotFoundException {
-        ProcessBuilder pb;
+    /**
+     * Builds once, then flashes the same artifacts to every port concurrently. Each port uses
+     * its shared esptool worker and gets its own output, prefixed with the port name.
+     */
+    public List<FlashResult> flashAll(File projectDir, List<String> ports, boolean forceBuild) throws IOException, InterruptedException {
+        Map<String, String> env = IdfEnvironment.forIdf(toolchain);
+        if (env == null) {
+            throw new IllegalStateException("❌ Flashing several boards needs the ESP-IDF environment; export.sh could not be run.");
+        }
 
-        if (os.contains("win")) {
-            File batchFile = new File(projectDir, "esp32_build_flash.bat");
-            if (!batchFile.exists()) {
-                throw new FileNotFoundException("Batch file not found: " + batchFile.getAbsolutePath());
+        awaitBuild(buildAsync(projectDir, forceBuild));
+
+        FlashHistory history = FlashHistory.load();
+        long start = System.nanoTime();
+        List<Future<FlashResult>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String port : ports) {
+                futures.add(executor.submit(() -> flashOne(projectDir, env, port, history)));
             }
-            pb = new ProcessBuilder("cmd.exe", "/c", batchFile.getName());
-            pb.directory(projectDir);
-        } else {
-            File shellFile = new File(projectDir, "esp32_build_flash.sh");
-            if (!shellFile.exists()) {
-                throw new FileNotFoundException("Shell script not found: " + shellFile.getAbsolutePath());
+        } finally {
+            history.save();
+        }
+
+        List<FlashResult> results = new ArrayList<>();
+        for (Future<FlashResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Unexpected flash failure", e.getCause());
             }
-            pb = new ProcessBuilder("bash", shellFile.getName());
-            pb.directory(projectDir);
         }
+        printSummary(results, System.nanoTime() - start);
+        return results;
+    }
 
-        pb.redirectErrorStream(true);
-        return pb;
+    private FlashResult flashOne(File projectDir, Map<String, String> env, String port, FlashHistory history) {
+        Consumer<String> out = line -> System.out.println("[" + port + "] " + line);
+        long t0 = System.nanoTime();
+        try {
+            FlashPlan plan = flashBoard(projectDir, env, port, history, worker(env, port, out), out);
+            return new FlashResult(port, true, plan.describe(), plan.bytesToWrite(), (System.nanoTime() - t0) / 1_000_000, null);
+        } catch (Exception e) {
+            out.accept("❌ " + e.getMessage());
+            return new FlashResult(port, false, null, 0, (System.nanoTime() - t0) / 1_000_000, e.getMessage());
+        }
     }
 
+    private static void printSummary(List<FlashResult> results, long totalNanos) {
+        System.out.println("Flash summary (" + (totalNanos / 1_000_000) + " ms total):");
+        for (FlashResult r : results) {
+            System.out.printf("  %s %-16s %6d ms  %s%n", r.success() ? "✅" : "❌", r.port(), r.millis(),
+                    r.success() ? r.operation() : r.error());
+        }
+        long ok = results.stream().filter(FlashResult::success).count();
+        System.out.println("  " + ok + "/" + results.size() + " board(s) flashed.");
+    }
 
+    /**
+     * Flashes the built image to one board using the smallest plan, through {@code worker}
+     * when given. Updates {@code history} but does not save it.
+     */
+    private FlashPlan flashBoard(File projectDir, Map<String, String> env, String port, FlashHistory history,
+                                 EsptoolWorker worker, Consumer<String> out) throws IOException, InterruptedException {
+        BuildTarget target = target(projectDir);
+        FlashImage image = FlashImage.fromBuildDir(target.buildDir(projectDir));
+        String boardId = FlashHistory.boardId(port);
+
+        FlashPlan plan = FlashPlan.choose(image, history.lastFlashed(boardId));
+        if (plan.kind() == FlashPlan.Kind.NONE) {
+            if (!verifyOnDevice || verifyBoard(projectDir, env, image, port, worker, out)) {
+                out.accept("⏭ " + boardId + " already holds this image, skipping flash.");
+                return plan;
+            }
+            out.accept("⚠️ Board contents differ from the flash history, flashing everything.");
+            plan = FlashPlan.full(image);
+        }
+
+        out.accept("🚀 Flashing project to " + port + ": " + plan.describe());
+        try {
+            if (image == null || !flashWithWorker(worker, env, image, plan, port, out)) {
+                EsptoolWorker.releaseShared(port); // the subprocesses open the port themselves
+                if (plan.kind() == FlashPlan.Kind.PARTIAL) {
+                    List<String> command = new ArrayList<>(List.of(pythonExecutable(), "-m", "esptool"));
+                    command.addAll(image.esptoolWriteArgs(port, baud(env), plan.toWrite()));
+                    if (runProcess(projectDir, env, command, out) != 0) {
+                        throw new RuntimeException("Flashing failed while writing changed partitions");
+                    }
+                } else {
+                    List<String> args = new ArrayList<>(List.of("-B", target.buildDir(projectDir).toString()));
+                    args.addAll(List.of(target.idfOptions(projectDir)));
+                    args.addAll(List.of("-p", port, plan.idfTarget()));
+                    runIdf(projectDir, env, "Flashing", out, args.toArray(String[]::new));
+                }
+            }
+        } catch (RuntimeException e) {
+            // A half-written board no longer matches anything we recorded
+            history.forget(boardId);
+            throw e;
+        }
+
+        if (image != null) {
+            history.record(boardId, image);
+            out.accept("📦 Wrote " + String.format("%,d", plan.bytesToWrite()) + " bytes to " + boardId);
+        }
+        return plan;
+    }
+
+    /**
+     * Writes the plan through an esptool worker, which keeps the port and stub for the next
+     * flash until JunoSerial needs the port. Returns false if there is no usable worker, so
+     * the caller falls back to idf.py/esptool subprocesses.
+     */
+    private static boolean flashWithWorker(EsptoolWorker worker, Map<String, String> env, FlashImage image,
+                                           FlashPlan plan, String port, Consumer<String> out) {
+        if (worker == null) return false;
+        try {
+            worker.write(port, baud(env), image, plan.toWrite(), out);
+            return true;
+        } catch (IOException e) {
+            out.accept("⚠️ " + e.getMessage() + " — retrying without the esptool worker.");
+            worker.close();
+            return false;
+        }
+    }
+
+    // The JVM-wide worker for the port; disabled with -Djuno.esptoolWorker=false
+    private EsptoolWorker worker(Map<String, String> env, String port, Consumer<String> out) {
+        if (!Boolean.parseBoolean(System.getProperty("juno.esptoolWorker", "true"))) return null;
+        try {
+            return EsptoolWorker.shared(pythonExecutable(), env, port);
+        } catch (IOException e) {
+            out.accept("⚠️ Could not start the esptool worker: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String baud(Map<String, String> env) {
+        return env.getOrDefault("ESPBAUD", "460800");
+    }
+
+    // esptool compares MD5s computed on the chip, without rewriting anything
+    private boolean verifyBoard(File projectDir, Map<String, String> env, FlashImage image, String port,
+                                       EsptoolWorker worker, Consumer<String> out) throws IOException, InterruptedException {
+        out.accept("🔍 Verifying board contents on " + port + "...");
+        if (worker != null) {
+            try {
+                return worker.verify(port, baud(env), image, out);
+            } catch (IOException e) {
+                worker.close();
+            }
+        }
+
+        List<String> command = new ArrayList<>(List.of(pythonExecutable(), "-m", "esptool", "--chip", image.chip(),
+                "-p", port, "verify_flash", "--diff", "no"));
+        for (FlashImage.Partition p : image.partitions()) {
+            command.add(p.offset());
+            command.add(p.file().toString());
+        }
+        return runProcess(projectDir, env, command, out) == 0;
+    }
+
+    private void runIdf(File projectDir, Map<String, String> env, String step, Consumer<String> out,
+                               String... args) throws IOException, InterruptedException {
+        ProcessRunner.Result result = idf(projectDir, env, out, args).run();
+        if (!result.succeeded()) {
+            throw new RuntimeException(step + " failed, " + result.describeFailure());
+        }
+    }
+
+    private ProcessRunner idf(File projectDir, Map<String, String> env, Consumer<String> out, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(pythonExecutable());
+        command.add(Paths.get(env.getOrDefault("IDF_PATH", toolchain.idfPath()), "tools", "idf.py").toString());
+        command.addAll(List.of(args));
+        return runner(projectDir, env, command, out);
+    }
+
+    private static int runProcess(File projectDir, Map<String, String> env, List<String> command,
+                                  Consumer<String> out) throws IOException, InterruptedException {
+        ProcessRunner.Result result = runner(projectDir, env, command, out).run();
+        return result.succeeded() ? 0 : result.exitCode() != 0 ? result.exitCode() : 1;
+    }
+
+    // Timeouts: -Djuno.processTimeoutSec (default 30 min), -Djuno.inactivityTimeoutSec (default 5 min)
+    private static ProcessRunner runner(File projectDir, Map<String, String> env, List<String> command, Consumer<String> out) {
+        return ProcessRunner.command(command)
+                .directory(projectDir)
+                .environment(env)
+                .onOutput(out)
+                .timeout(Duration.ofSeconds(Long.getLong("juno.processTimeoutSec", 1800)))
+                .inactivityTimeout(Duration.ofSeconds(Long.getLong("juno.inactivityTimeoutSec", 300)));
+    }
+
+    private String pythonExecutable() {
+        return toolchain.python();
+    }
+
+    /**
+     * Runs the generated esp32_build_flash script, with the same timeouts as idf.py.
+     */
+    public void flashProject(File projectDir) throws IOException, InterruptedException {
+        String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        ProcessRunner.Result result = runner(projectDir, null, scriptCommand(projectDir, os), System.out::println).run();
+        if (!result.succeeded()) {
+            throw new RuntimeException("Flashing failed, " + result.describeFailure());
+        }
+        System.out.println("✅ Flashing finished successfully.");
+    }
+
+    private static List<String> scriptCommand(File projectDir, String os) throws FileNotFoundException {
+        if (os.contains("win")) {
+            File batchFile = new File(projectDir, "esp32_build_flash.bat");
+            if (!batchFile.exists()) {
+                throw new FileNotFoundException("Batch file not found: " + batchFile.getAbsolutePath());
+            }
+            return List.of("cmd.exe", "/c", batchFile.getName());
+        }
+        File shellFile = new File(projectDir, "esp32_build_flash.sh");
+        if (!shellFile.exists()) {
+            throw new FileNotFoundException("Shell script not found: " + shellFile.getAbsolutePath());
+        }
+        return List.of("bash", shellFile.getName());
+    }
 }
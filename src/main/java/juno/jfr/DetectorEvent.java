@@ -0,0 +1,23 @@
+package juno.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("juno.Detector")
+@Label("Tool Detection")
+@Category({"Juno", "Detection"})
+@Description("One JunoDetector call, e.g. a walk of the Espressif tools directory")
+public class DetectorEvent extends Event {
+
+    @Label("Detector")
+    public String detector;
+
+    @Label("Result")
+    public String result;
+
+    @Label("Failed")
+    public boolean failed;
+}
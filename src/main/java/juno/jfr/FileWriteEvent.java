@@ -0,0 +1,26 @@
+package juno.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("juno.FileWrite")
+@Label("Scaffolded File Write")
+@Category({"Juno", "Project"})
+@Description("One generated project file, including the hash comparison that may skip the write")
+public class FileWriteEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Changed")
+    @Description("False when the content was identical and the file was left alone")
+    public boolean changed;
+}
@@ -0,0 +1,58 @@
+package juno.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Starts a Java Flight Recorder recording for {@code --record} / {@code --record=<file>}.
+ * The JDK's default (low overhead) settings are used plus all Juno events; the file is
+ * written when the JVM exits and can be opened in JDK Mission Control.
+ */
+public class FlightRecording {
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /**
+     * Starts a recording if {@code args} contain the flag. Returns the destination, or null.
+     */
+    public static Path startIfRequested(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--record")) {
+                return start(Paths.get(System.getProperty("user.dir"), ".juno",
+                        "juno-" + LocalDateTime.now().format(STAMP) + ".jfr"));
+            }
+            if (arg.startsWith("--record=")) {
+                return start(Paths.get(arg.substring("--record=".length())).toAbsolutePath());
+            }
+        }
+        return null;
+    }
+
+    public static Path start(Path destination) {
+        try {
+            Files.createDirectories(destination.getParent());
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("Juno");
+            recording.enable(DetectorEvent.class);
+            recording.enable(ProcessEvent.class);
+            recording.enable(FileWriteEvent.class);
+            recording.enable(SerialIoEvent.class);
+            recording.setToDisk(true);
+            recording.setDestination(destination); // JFR stops and writes it on JVM exit
+            recording.start();
+            System.out.println("🎥 Recording JFR events to " + destination);
+            return destination;
+        } catch (IOException | ParseException | IllegalStateException e) {
+            System.err.println("⚠️ Could not start flight recording: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package juno.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("juno.Process")
+@Label("Subprocess")
+@Category({"Juno", "Process"})
+@Description("An external process (idf.py, esptool, build script) from start until its output is drained")
+public class ProcessEvent extends Event {
+
+    @Label("Command")
+    public String command;
+
+    @Label("Exit Code")
+    public int exitCode;
+
+    @Label("Timeout")
+    @Description("NONE, or which watchdog timeout killed the process")
+    public String timeout;
+}
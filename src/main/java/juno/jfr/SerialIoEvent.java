@@ -0,0 +1,26 @@
+package juno.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("juno.SerialIo")
+@Label("Serial I/O")
+@Category({"Juno", "Serial"})
+@Description("One serial read or write batch; the event duration is its latency")
+public class SerialIoEvent extends Event {
+
+    @Label("Port")
+    public String port;
+
+    @Label("Direction")
+    @Description("read or write")
+    public String direction;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,80 @@
+package juno.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of per-run phase timings in .juno/metrics.log, one compact JSON
+ * object per line, e.g.
+ * {@code {"time":1760000000000,"project":"3f2a…","port":"/dev/ttyUSB0","idf":"v5.2.1","ok":true,"phases":{"detect":120,...}}}.
+ */
+public class MetricsLog {
+
+    private static final Path LOG_PATH = Paths.get(System.getProperty("user.dir"), ".juno", "metrics.log");
+
+    /**
+     * One run. {@code phases} maps phase name to milliseconds.
+     */
+    public record Run(long time, String project, String port, String idf, boolean ok, Map<String, Long> phases) {
+    }
+
+    public static void append(Run run) {
+        try {
+            Files.createDirectories(LOG_PATH.getParent());
+            Files.writeString(LOG_PATH, new Gson().toJson(run) + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to append metrics to " + LOG_PATH + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The last {@code limit} runs, oldest first. Unreadable lines are skipped.
+     */
+    public static List<Run> recent(int limit) throws IOException {
+        if (!Files.exists(LOG_PATH)) return List.of();
+        Gson gson = new Gson();
+        List<Run> runs = new ArrayList<>();
+        for (String line : Files.readAllLines(LOG_PATH, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) continue;
+            try {
+                Run run = gson.fromJson(line, Run.class);
+                if (run != null && run.phases() != null) runs.add(run);
+            } catch (JsonParseException ignored) {
+                // Half-written line from an interrupted run
+            }
+        }
+        return runs.subList(Math.max(0, runs.size() - limit), runs.size());
+    }
+
+    /**
+     * Short stable tag for a project: its path, not its contents, so edits do not split the history.
+     */
+    public static String projectHash(File projectDir) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(projectDir.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static Path path() {
+        return LOG_PATH;
+    }
+}
@@ -0,0 +1,80 @@
+package juno.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Percentiles per phase over recorded runs, and regression checks of the latest run
+ * against a rolling baseline of comparable earlier runs.
+ */
+public class PhaseStats {
+
+    // Below this a phase is noise (JIT, disk cache), whatever the percentage
+    private static final long MIN_REGRESSION_MS = 50;
+    private static final int MIN_BASELINE_RUNS = 3;
+
+    public record Summary(String phase, int count, long p50, long p95, long last) {
+    }
+
+    public record Regression(String phase, long latest, long baselineP50, double percent) {
+    }
+
+    /**
+     * Phase summaries, in the order phases first appear in the runs.
+     */
+    public static List<Summary> summarize(List<MetricsLog.Run> runs) {
+        Map<String, List<Long>> samples = new LinkedHashMap<>();
+        for (MetricsLog.Run run : runs) {
+            run.phases().forEach((phase, ms) -> samples.computeIfAbsent(phase, k -> new ArrayList<>()).add(ms));
+        }
+        List<Summary> summaries = new ArrayList<>();
+        samples.forEach((phase, values) -> {
+            long last = values.get(values.size() - 1);
+            List<Long> sorted = values.stream().sorted().toList();
+            summaries.add(new Summary(phase, sorted.size(), percentile(sorted, 50), percentile(sorted, 95), last));
+        });
+        return summaries;
+    }
+
+    /**
+     * Phases of the latest run that are more than {@code thresholdPercent} slower than
+     * the median of up to {@code baselineRuns} earlier successful runs of the same
+     * project on the same IDF version.
+     */
+    public static List<Regression> regressions(List<MetricsLog.Run> runs, double thresholdPercent, int baselineRuns) {
+        if (runs.isEmpty()) return List.of();
+        MetricsLog.Run latest = runs.get(runs.size() - 1);
+
+        List<MetricsLog.Run> baseline = new ArrayList<>();
+        for (int i = runs.size() - 2; i >= 0 && baseline.size() < baselineRuns; i--) {
+            MetricsLog.Run run = runs.get(i);
+            if (run.ok() && Objects.equals(run.project(), latest.project()) && Objects.equals(run.idf(), latest.idf())) {
+                baseline.add(run);
+            }
+        }
+
+        List<Regression> regressions = new ArrayList<>();
+        latest.phases().forEach((phase, ms) -> {
+            List<Long> sorted = baseline.stream()
+                    .map(run -> run.phases().get(phase))
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .toList();
+            if (sorted.size() < MIN_BASELINE_RUNS) return;
+            long p50 = percentile(sorted, 50);
+            if (ms - p50 >= MIN_REGRESSION_MS && ms > p50 * (1 + thresholdPercent / 100.0)) {
+                regressions.add(new Regression(phase, ms, p50, p50 == 0 ? 100.0 : (ms - p50) * 100.0 / p50));
+            }
+        });
+        return regressions;
+    }
+
+    // Nearest-rank percentile of an ascending list
+    static long percentile(List<Long> sorted, double p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+}
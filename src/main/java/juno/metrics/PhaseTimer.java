@@ -0,0 +1,51 @@
+package juno.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Times the phases of one Juno run with the monotonic clock.
+ *
+ * <pre>
+ * try (PhaseTimer.Phase ignored = timer.phase("build")) {
+ *     ...
+ * }
+ * </pre>
+ * A phase entered more than once accumulates its durations. javac -Xlint:try flags the
+ * never-referenced resource, so methods using this idiom suppress "try".
+ */
+public class PhaseTimer {
+
+    private final Map<String, Long> nanos = new LinkedHashMap<>();
+
+    public final class Phase implements AutoCloseable {
+        private final String name;
+        private final long start = System.nanoTime();
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            add(name, System.nanoTime() - start);
+        }
+    }
+
+    public Phase phase(String name) {
+        return new Phase(name);
+    }
+
+    public synchronized void add(String name, long elapsedNanos) {
+        nanos.merge(name, elapsedNanos, Long::sum);
+    }
+
+    /**
+     * Phase → milliseconds, in the order the phases first finished.
+     */
+    public synchronized Map<String, Long> millis() {
+        Map<String, Long> millis = new LinkedHashMap<>();
+        nanos.forEach((name, n) -> millis.put(name, n / 1_000_000));
+        return millis;
+    }
+}
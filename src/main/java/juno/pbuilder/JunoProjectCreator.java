@@ -1,19 +1,40 @@
 package juno.pbuilder;
 
 import juno.config.JunoPaths;
+import juno.jfr.FileWriteEvent;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
 
 public class JunoProjectCreator {
 
     private static String PROJECT_DIR = "Null Project";
+    private static final List<Path> CHANGED_FILES = new ArrayList<>();
+
+    public static final String DEFAULT_PROJECT = "ESP32Project";
 
     public static File createProject() throws IOException {
-        File projectDir = JunoPaths.getProjectDir("ESP32Project");
+        return createProject(DEFAULT_PROJECT);
+    }
+
+    /**
+     * Creates or refreshes the named project under .juno/{@code name}.
+     */
+    public static synchronized File createProject(String name) throws IOException {
+        if (!name.matches("[A-Za-z0-9_.-]+") || name.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid project name: " + name);
+        }
+        File projectDir = JunoPaths.getProjectDir(name);
         JunoProjectCreator.PROJECT_DIR = projectDir.getAbsolutePath();
         Path mainDir = projectDir.toPath().resolve("main");
         Files.createDirectories(mainDir);
@@ -22,27 +43,84 @@ public class JunoProjectCreator {
         return projectDir;
     }
 
+    /**
+     * Names of the projects under .juno, i.e. the directories with a CMakeLists.txt.
+     */
+    public static List<String> listProjects() throws IOException {
+        Path juno = Paths.get(System.getProperty("user.dir"), ".juno");
+        if (!Files.isDirectory(juno)) return List.of();
+        try (Stream<Path> dirs = Files.list(juno)) {
+            return dirs.filter(dir -> Files.isRegularFile(dir.resolve("CMakeLists.txt")))
+                    .map(dir -> dir.getFileName().toString())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Files whose content actually changed during the last {@link #createProject()} call.
+     */
+    public static List<Path> getChangedFiles() {
+        return List.copyOf(CHANGED_FILES);
+    }
+
     private static void writeFiles() throws IOException {
-        writeTextFile(PROJECT_DIR + "\\CMakeLists.txt", cmakeListsTxtContent());
-        writeTextFile(PROJECT_DIR + "\\LICENSE", licenseContent());
-        writeTextFile(PROJECT_DIR + "\\README.md", readmeContent());
-        writeTextFile(PROJECT_DIR + "\\.clangd", clangdContent());
-        writeTextFile(PROJECT_DIR + "\\.clang-format", clangFormatContent());
-        writeTextFile(PROJECT_DIR + "\\.cproject", cprojectContent());
-        writeTextFile(PROJECT_DIR + "\\.project", projectContent());
-        writeTextFile(PROJECT_DIR + "\\.gitignore", gitignoreContent());
+        CHANGED_FILES.clear();
+        Path root = Paths.get(PROJECT_DIR);
+        Path main = root.resolve("main");
+
+        writeTextFile(root.resolve("CMakeLists.txt"), cmakeListsTxtContent());
+        writeTextFile(root.resolve("LICENSE"), licenseContent());
+        writeTextFile(root.resolve("README.md"), readmeContent());
+        writeTextFile(root.resolve(".clangd"), clangdContent());
+        writeTextFile(root.resolve(".clang-format"), clangFormatContent());
+        writeTextFile(root.resolve(".cproject"), cprojectContent());
+        writeTextFile(root.resolve(".project"), projectContent());
+        writeTextFile(root.resolve(".gitignore"), gitignoreContent());
 
-        writeTextFile(PROJECT_DIR + "\\main\\CMakeLists.txt", mainCMakeListsTxtContent());
-        writeTextFile(PROJECT_DIR + "\\main\\Kconfig.projbuild", kconfigProjbuildContent());
-        writeTextFile(PROJECT_DIR + "\\main\\juno_serial.h", junoSerialHeaderfile());
-        writeTextFile(PROJECT_DIR + "\\main\\juno_serial.c", junoSerialSourceFile());
-        writeTextFile(PROJECT_DIR + "\\main\\main.c", mainCContent());
+        writeTextFile(main.resolve("CMakeLists.txt"), mainCMakeListsTxtContent());
+        writeTextFile(main.resolve("Kconfig.projbuild"), kconfigProjbuildContent());
+        writeTextFile(main.resolve("juno_serial.h"), junoSerialHeaderfile());
+        writeTextFile(main.resolve("juno_serial.c"), junoSerialSourceFile());
+        writeTextFile(main.resolve("main.c"), mainCContent());
 
-        System.out.println("Created all project files.");
+        if (CHANGED_FILES.isEmpty()) {
+            System.out.println("✅ Project files unchanged.");
+        } else {
+            System.out.println("Updated " + CHANGED_FILES.size() + " project file(s).");
+        }
     }
 
-    private static void writeTextFile(String path, String content) throws IOException {
-        Files.write(Paths.get(path), content.getBytes());
+    /**
+     * Writes the file only if its content differs, so unchanged files keep their
+     * mtime and CMake/ninja see nothing to rebuild. Changed files are replaced atomically.
+     */
+    private static void writeTextFile(Path path, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        FileWriteEvent event = new FileWriteEvent();
+        event.path = path.toString();
+        event.bytes = bytes.length;
+        event.begin();
+        if (Files.exists(path) && Files.size(path) == bytes.length
+                && Arrays.equals(Files.readAllBytes(path), bytes)) {
+            event.commit();
+            return;
+        }
+
+        Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, bytes);
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        event.changed = true;
+        event.commit();
+        CHANGED_FILES.add(path);
         System.out.println("Created: " + path);
     }
 
@@ -86,8 +164,9 @@ public class JunoProjectCreator {
                 # Ignore build output folder
                 /build/
                 
-                # Ignore SDK config file
+                # Ignore SDK config files (one per target)
                 /sdkconfig
+                /sdkconfig.esp32*
                 
                 # Ignore Eclipse project files (if used)
                 .cproject
@@ -123,7 +202,28 @@ public class JunoProjectCreator {
     }
 
     private static String kconfigProjbuildContent() {
-        return "# Minimal Kconfig.projbuild\n";
+        return """
+                menu "Juno serial"
+                
+                    config JUNO_SERIAL_BAUD
+                        int "UART0 baud rate of the Juno protocol"
+                        default 115200
+                        help
+                            Must match the host (-Djuno.serialBaud). 921600 or more allows
+                            thousands of pipelined requests per second. There is no flow
+                            control, so pipelined requests are limited by JUNO_SERIAL_RX_BUFFER.
+                
+                    config JUNO_SERIAL_RX_BUFFER
+                        int "UART0 receive buffer size in bytes"
+                        default 4096
+                        range 1024 65536
+                        help
+                            Pipelined requests not read yet wait here. The host must not have
+                            more bytes in flight (-Djuno.requestWindowBytes, default 4096), or
+                            the driver drops input at high baud rates.
+                
+                endmenu
+                """;
     }
 
     private static String junoSerialHeaderfile() {
@@ -159,12 +259,27 @@ public class JunoProjectCreator {
                 #include "driver/uart.h"
                 #include "freertos/FreeRTOS.h"
                 #include "freertos/task.h"
+                #include "sdkconfig.h"
+                #include <stdio.h>
+                #include <stdlib.h>
                 #include <string.h>
                 
                 #define BUF_SIZE 512
-                #define UART_NUM UART_NUM_0              
+                #define UART_NUM UART_NUM_0
+                
+                #ifndef CONFIG_JUNO_SERIAL_BAUD
+                #define CONFIG_JUNO_SERIAL_BAUD 115200
+                #endif
+                
+                #ifndef CONFIG_JUNO_SERIAL_RX_BUFFER
+                #define CONFIG_JUNO_SERIAL_RX_BUFFER 4096
+                #endif
                 
-                static char internal_buffer[BUF_SIZE];              
+                // Request id ("@<id> <command>") of the line being handled, -1 for a plain line.
+                // Once the host sends tagged requests it pipelines them, so the juno_read prompt
+                // and the wait for each transmission are dropped.
+                static long current_id = -1;
+                static bool pipelined = false;
                 
                 bool juno_serial_read_line(char *out, size_t maxLen) {
                     int index = 0;
@@ -184,12 +299,12 @@ public class JunoProjectCreator {
                 }
                 
                 
-                void juno_serial_init() {                \s
+                void juno_serial_init() {
                     static bool initialized = false;
                     if (initialized) return;
                 
                     uart_config_t uart_config = {
-                        .baud_rate = 115200,
+                        .baud_rate = CONFIG_JUNO_SERIAL_BAUD,
                         .data_bits = UART_DATA_8_BITS,
                         .parity = UART_PARITY_DISABLE,
                         .stop_bits = UART_STOP_BITS_1,
@@ -199,14 +314,14 @@ public class JunoProjectCreator {
                     uart_param_config(UART_NUM_0, &uart_config);
                     uart_set_pin(UART_NUM_0, UART_PIN_NO_CHANGE, UART_PIN_NO_CHANGE,
                                  UART_PIN_NO_CHANGE, UART_PIN_NO_CHANGE);
-                    uart_driver_install(UART_NUM_0, BUF_SIZE * 2, 0, 0, NULL, 0);
+                    uart_driver_install(UART_NUM_0, CONFIG_JUNO_SERIAL_RX_BUFFER, BUF_SIZE * 8, 0, NULL, 0);
                 
                     // Block here until "flash" is received
                     char buffer[64];
                     while (true) {
                         if (juno_serial_read_line(buffer, sizeof(buffer))) {
                             if (strcmp(buffer, "flash") == 0) {
-                               
+                
                                 uart_write_bytes(UART_NUM_0, "thunder\\n", strlen("thunder\\n"));
                                 uart_wait_tx_done(UART_NUM_0, pdMS_TO_TICKS(50));
                                 break;
@@ -217,14 +332,27 @@ public class JunoProjectCreator {
                     initialized = true;
                 }
                 
+                // "@<digits> <command>": remembers the id and returns the command, else returns the line
+                static const char *juno_serial_untag(char *line) {
+                    current_id = -1;
+                    if (line[0] != '@') return line;
+                    char *end;
+                    long id = strtol(line + 1, &end, 10);
+                    if (end == line + 1 || *end != ' ' || id < 0) return line;
+                    current_id = id;
+                    pipelined = true;
+                    return end + 1;
+                }
+                
                 const char* juno_serial_read() {
                     static char buffer[BUF_SIZE];
                     static int index = 0;
                 
                     // Send "ready" to host to indicate ESP32 is ready for a command
-                   
-                    uart_write_bytes(UART_NUM, "juno_read\\n", strlen("juno_read\\n"));
-                     uart_wait_tx_done(UART_NUM, pdMS_TO_TICKS(50));
+                    if (!pipelined) {
+                        uart_write_bytes(UART_NUM, "juno_read\\n", strlen("juno_read\\n"));
+                        uart_wait_tx_done(UART_NUM, pdMS_TO_TICKS(50));
+                    }
                 
                     while (1) {
                         uint8_t ch;
@@ -239,11 +367,12 @@ public class JunoProjectCreator {
                 
                                 // Handle internal JUNO command
                                 if (strcmp(buffer, "flash") == 0) {
+                                    current_id = -1;
                                     juno_serial_write("thunder");
                                     return NULL; // Skip this one, ask for next
                                 }
                 
-                                return buffer;
+                                return juno_serial_untag(buffer);
                             }
                 
                             if (index < BUF_SIZE - 1) {
@@ -254,12 +383,22 @@ public class JunoProjectCreator {
                 }
                 
                 
+                // The first message after a tagged request is its reply and carries the same "@<id> " tag,
+                // even when empty, so every request gets an answer
                 void juno_serial_write(const char *message) {
-                    if (message && strlen(message) > 0) {
-                        char buffer[512];  // Adjust size as needed
+                    if (!message) message = "";
+                    if (current_id < 0 && strlen(message) == 0) return;
+                
+                    char buffer[512];  // Adjust size as needed
+                    if (current_id >= 0) {
+                        snprintf(buffer, sizeof(buffer), "@%ld %s\\n", current_id, message);
+                        current_id = -1;
+                    } else {
                         snprintf(buffer, sizeof(buffer), "%s\\n", message);
-                      
-                        uart_write_bytes(UART_NUM, buffer, strlen(buffer));
+                    }
+                
+                    uart_write_bytes(UART_NUM, buffer, strlen(buffer));
+                    if (!pipelined) {
                         uart_wait_tx_done(UART_NUM, pdMS_TO_TICKS(50));
                     }
                 }
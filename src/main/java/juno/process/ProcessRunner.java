@@ -0,0 +1,240 @@
+package juno.process;
+
+import juno.jfr.ProcessEvent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs an external process without blocking the caller. stdout and stderr are pumped
+ * line by line on virtual threads into pluggable consumers; a watchdog enforces an
+ * optional wall-clock and inactivity (no output) timeout. Cancelling the returned
+ * future, or hitting a timeout, kills the whole process tree.
+ *
+ * <pre>
+ * ProcessRunner.command(List.of("idf.py", "build"))
+ *         .directory(projectDir)
+ *         .onOutput(System.out::println)
+ *         .inactivityTimeout(Duration.ofMinutes(5))
+ *         .start();
+ * </pre>
+ */
+public final class ProcessRunner {
+
+    public enum Timeout {
+        NONE, WALL_CLOCK, INACTIVITY
+    }
+
+    /**
+     * Exit status of a finished process. {@code exitCode} is the code the (killed) process
+     * reported; {@code timeout} tells whether the watchdog stopped it.
+     */
+    public record Result(List<String> command, int exitCode, Duration duration, Timeout timeout) {
+        public boolean succeeded() {
+            return exitCode == 0 && timeout == Timeout.NONE;
+        }
+
+        public String describeFailure() {
+            return switch (timeout) {
+                case WALL_CLOCK -> "timed out after " + duration.toSeconds() + " s";
+                case INACTIVITY -> "produced no output for too long and was stopped";
+                case NONE -> "exit code: " + exitCode;
+            };
+        }
+    }
+
+    private final List<String> command;
+    private File directory;
+    private Map<String, String> environment;
+    private Consumer<String> stdout = line -> {
+    };
+    private Consumer<String> stderr = line -> {
+    };
+    private Duration timeout;
+    private Duration inactivityTimeout;
+
+    private ProcessRunner(List<String> command) {
+        this.command = List.copyOf(command);
+    }
+
+    public static ProcessRunner command(List<String> command) {
+        return new ProcessRunner(command);
+    }
+
+    public ProcessRunner directory(File directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    /**
+     * Replaces the inherited environment with exactly these variables.
+     */
+    public ProcessRunner environment(Map<String, String> environment) {
+        this.environment = environment;
+        return this;
+    }
+
+    public ProcessRunner onStdout(Consumer<String> consumer) {
+        this.stdout = consumer;
+        return this;
+    }
+
+    public ProcessRunner onStderr(Consumer<String> consumer) {
+        this.stderr = consumer;
+        return this;
+    }
+
+    /**
+     * Sends both stdout and stderr lines to the same consumer.
+     */
+    public ProcessRunner onOutput(Consumer<String> consumer) {
+        return onStdout(consumer).onStderr(consumer);
+    }
+
+    public ProcessRunner timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public ProcessRunner inactivityTimeout(Duration inactivityTimeout) {
+        this.inactivityTimeout = inactivityTimeout;
+        return this;
+    }
+
+    /**
+     * Starts the process and returns immediately. The future completes once the process
+     * has exited and both output streams are drained.
+     */
+    public CompletableFuture<Result> start() throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(new ArrayList<>(command));
+        if (directory != null) pb.directory(directory);
+        if (environment != null) {
+            pb.environment().clear();
+            pb.environment().putAll(environment);
+            pb.command().set(0, resolveExecutable(command.get(0), environment));
+        }
+
+        ProcessEvent event = new ProcessEvent();
+        event.command = String.join(" ", command);
+        event.begin();
+        long startNanos = System.nanoTime();
+        Process process = pb.start();
+        AtomicLong lastOutput = new AtomicLong(startNanos);
+        CompletableFuture<Result> result = new CompletableFuture<>();
+
+        Thread outPump = pump(process.getInputStream(), stdout, lastOutput, "stdout");
+        Thread errPump = pump(process.getErrorStream(), stderr, lastOutput, "stderr");
+
+        result.whenComplete((r, error) -> {
+            if (error instanceof CancellationException) killTree(process);
+        });
+
+        Thread.ofVirtual().name("process-watchdog-" + process.pid()).start(() -> {
+            Timeout fired = Timeout.NONE;
+            try {
+                while (!process.waitFor(pollMillis(), TimeUnit.MILLISECONDS)) {
+                    long now = System.nanoTime();
+                    if (timeout != null && now - startNanos > timeout.toNanos()) {
+                        fired = Timeout.WALL_CLOCK;
+                    } else if (inactivityTimeout != null && now - lastOutput.get() > inactivityTimeout.toNanos()) {
+                        fired = Timeout.INACTIVITY;
+                    }
+                    if (fired != Timeout.NONE || result.isDone()) {
+                        killTree(process);
+                        process.waitFor();
+                        break;
+                    }
+                }
+                outPump.join();
+                errPump.join();
+                event.exitCode = process.exitValue();
+                event.timeout = fired.name();
+                event.commit();
+                result.complete(new Result(command, process.exitValue(),
+                        Duration.ofNanos(System.nanoTime() - startNanos), fired));
+            } catch (InterruptedException e) {
+                killTree(process);
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Starts the process and blocks until it finishes.
+     */
+    public Result run() throws IOException, InterruptedException {
+        CompletableFuture<Result> future = start();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IOException("Process runner failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private long pollMillis() {
+        long poll = 500;
+        if (timeout != null) poll = Math.min(poll, Math.max(10, timeout.toMillis() / 10));
+        if (inactivityTimeout != null) poll = Math.min(poll, Math.max(10, inactivityTimeout.toMillis() / 10));
+        return poll;
+    }
+
+    private static Thread pump(InputStream stream, Consumer<String> consumer, AtomicLong lastOutput, String name) {
+        return Thread.ofVirtual().name("process-" + name).start(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lastOutput.set(System.nanoTime());
+                    consumer.accept(line);
+                }
+            } catch (IOException | UncheckedIOException ignored) {
+                // Stream closed because the process was killed
+            }
+        });
+    }
+
+    /**
+     * The JVM looks bare command names up on its own PATH, not the child's. Resolve them
+     * against the given environment's PATH so e.g. the ninja exported by ESP-IDF is used.
+     */
+    static String resolveExecutable(String name, Map<String, String> environment) {
+        if (name.contains("/") || name.contains(File.separator)) return name;
+        String path = environment.get("PATH");
+        if (path == null) path = environment.get("Path");
+        if (path == null) return name;
+
+        boolean windows = File.separatorChar == '\\';
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isBlank()) continue;
+            for (String candidate : windows ? List.of(name + ".exe", name + ".bat", name) : List.of(name)) {
+                File file = new File(dir, candidate);
+                if (file.isFile() && file.canExecute()) return file.getAbsolutePath();
+            }
+        }
+        return name;
+    }
+
+    // Children first, so idf.py cannot respawn ninja/esptool after it is gone
+    private static void killTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+}
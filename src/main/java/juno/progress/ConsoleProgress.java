@@ -0,0 +1,83 @@
+package juno.progress;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Renders progress events on the console. On an interactive terminal the build and
+ * flash steps collapse into one live status line and only notable lines (errors,
+ * warnings and Juno's own messages) are printed; otherwise, or with
+ * {@code -Djuno.verbose=true}, every output line is printed as before.
+ */
+public class ConsoleProgress implements ProgressListener {
+
+    private static final int WIDTH = 100;
+
+    private final PrintStream out;
+    private final boolean live;
+    private boolean statusShown;
+
+    public ConsoleProgress() {
+        this(System.out, System.console() != null && !Boolean.getBoolean("juno.verbose"));
+    }
+
+    public ConsoleProgress(PrintStream out, boolean live) {
+        this.out = out;
+        this.live = live;
+    }
+
+    @Override
+    public synchronized void onEvent(ProgressEvent event) {
+        if (!live) {
+            if (event instanceof ProgressEvent.Line line) out.println(line.text());
+            return;
+        }
+        switch (event) {
+            case ProgressEvent.Line line -> {
+                if (isNotable(line.text())) println(line.text());
+            }
+            case ProgressEvent.ConfigureStarted ignored -> status("⚙️ Configuring with CMake...");
+            case ProgressEvent.ConfigureFinished ignored -> status("⚙️ Configured.");
+            case ProgressEvent.BuildStep step -> status(String.format("🔨 [%d/%d] %3d%% %s",
+                    step.step(), step.total(), step.percent(), step.description()));
+            case ProgressEvent.Linking link -> status("🔗 Linking " + link.artifact());
+            case ProgressEvent.Connecting ignored -> status("🔌 Connecting...");
+            case ProgressEvent.FlashProgress p -> status(String.format(Locale.ROOT, "🚀 Writing at 0x%08x %5.1f%%",
+                    p.address(), p.percent()));
+            case ProgressEvent.FlashWritten w -> println(String.format(Locale.ROOT,
+                    "📦 0x%08x: %,d bytes in %.1f s (%.1f kbit/s)", w.address(), w.bytes(), w.seconds(), w.kbitPerSecond()));
+        }
+    }
+
+    /**
+     * Ends the live status line, leaving its last state visible.
+     */
+    public synchronized void done() {
+        if (statusShown) {
+            out.println();
+            statusShown = false;
+        }
+    }
+
+    private void status(String text) {
+        String shown = text.length() > WIDTH ? text.substring(0, WIDTH - 1) + "…" : text;
+        out.print("\r" + shown + " ".repeat(WIDTH - shown.length()));
+        out.flush();
+        statusShown = true;
+    }
+
+    private void println(String text) {
+        if (statusShown) {
+            out.print("\r" + " ".repeat(WIDTH) + "\r");
+            statusShown = false;
+        }
+        out.println(text);
+    }
+
+    private static boolean isNotable(String line) {
+        String lower = line.toLowerCase(Locale.ROOT);
+        if (lower.contains("error") || lower.contains("warning:") || lower.contains("failed")) return true;
+        // Juno's own status lines start with an emoji rather than a letter
+        return !line.isEmpty() && !Character.isLetterOrDigit(line.codePointAt(0)) && line.codePointAt(0) > 0x2000;
+    }
+}
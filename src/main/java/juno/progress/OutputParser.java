@@ -0,0 +1,76 @@
+package juno.progress;
+
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming parser for build and flash output. Fed one line at a time (it is a plain
+ * line consumer, so it plugs into ProcessRunner and EsptoolWorker), it forwards each
+ * line as a {@link ProgressEvent.Line} followed by any typed event recognised in it.
+ * Nothing but the current CMake state is kept between lines.
+ */
+public class OutputParser implements Consumer<String> {
+
+    private static final Pattern NINJA_STEP = Pattern.compile("^\\[(\\d+)/(\\d+)\\]\\s+(.*)$");
+    private static final Pattern LINKING = Pattern.compile("^Linking \\S+ (?:executable|static library|shared library) (\\S+)");
+    // esptool 4: "Writing at 0x00010000... (10 %)", esptool 5: "Writing at 0x00010000 [===>  ] 10.0% 1024/9000 bytes..."
+    private static final Pattern WRITING = Pattern.compile("Writing at (0x[0-9a-fA-F]+)\\D*?(\\d+(?:\\.\\d+)?)\\s?%");
+    private static final Pattern WROTE = Pattern.compile(
+            "Wrote (\\d+) bytes.*? at (0x[0-9a-fA-F]+) in ([\\d.]+) seconds(?: \\(effective ([\\d.]+) kbit/s\\))?");
+
+    private final ProgressListener listener;
+    private boolean configuring;
+
+    public OutputParser(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    // stdout and stderr are pumped on separate threads
+    @Override
+    public synchronized void accept(String line) {
+        listener.onEvent(new ProgressEvent.Line(line));
+        String text = line.strip();
+
+        if (text.startsWith("Running cmake in directory") || (!configuring && text.startsWith("-- The C compiler identification"))) {
+            configuring = true;
+            listener.onEvent(new ProgressEvent.ConfigureStarted());
+            return;
+        }
+        if (configuring && text.startsWith("-- Build files have been written to")) {
+            configuring = false;
+            listener.onEvent(new ProgressEvent.ConfigureFinished());
+            return;
+        }
+
+        Matcher m = NINJA_STEP.matcher(text);
+        if (m.matches()) {
+            if (configuring) {
+                configuring = false;
+                listener.onEvent(new ProgressEvent.ConfigureFinished());
+            }
+            String description = m.group(3);
+            listener.onEvent(new ProgressEvent.BuildStep(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)), description));
+            Matcher link = LINKING.matcher(description);
+            if (link.find()) listener.onEvent(new ProgressEvent.Linking(link.group(1)));
+            return;
+        }
+
+        if (text.startsWith("Connecting")) {
+            listener.onEvent(new ProgressEvent.Connecting());
+            return;
+        }
+        m = WRITING.matcher(text);
+        if (m.find()) {
+            listener.onEvent(new ProgressEvent.FlashProgress(Long.decode(m.group(1)), Double.parseDouble(m.group(2))));
+            return;
+        }
+        m = WROTE.matcher(text);
+        if (m.find()) {
+            double seconds = Double.parseDouble(m.group(3));
+            long bytes = Long.parseLong(m.group(1));
+            double kbit = m.group(4) != null ? Double.parseDouble(m.group(4)) : seconds > 0 ? bytes * 8 / 1000.0 / seconds : 0;
+            listener.onEvent(new ProgressEvent.FlashWritten(Long.decode(m.group(2)), bytes, seconds, kbit));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package juno.progress;
+
+/**
+ * Typed events recognised in idf.py, CMake, ninja and esptool output by {@link OutputParser}.
+ */
+public sealed interface ProgressEvent {
+
+    /**
+     * Every output line, recognised or not, in the order it was produced.
+     */
+    record Line(String text) implements ProgressEvent {
+    }
+
+    /**
+     * idf.py started (re)running CMake.
+     */
+    record ConfigureStarted() implements ProgressEvent {
+    }
+
+    /**
+     * CMake finished generating the build files.
+     */
+    record ConfigureFinished() implements ProgressEvent {
+    }
+
+    /**
+     * A ninja {@code [step/total]} line.
+     */
+    record BuildStep(int step, int total, String description) implements ProgressEvent {
+        public int percent() {
+            return total == 0 ? 0 : step * 100 / total;
+        }
+    }
+
+    /**
+     * ninja is linking {@code artifact} (an executable or a static library).
+     */
+    record Linking(String artifact) implements ProgressEvent {
+    }
+
+    /**
+     * esptool is connecting to the chip.
+     */
+    record Connecting() implements ProgressEvent {
+    }
+
+    /**
+     * An esptool {@code Writing at 0x... (x %)} line.
+     */
+    record FlashProgress(long address, double percent) implements ProgressEvent {
+    }
+
+    /**
+     * esptool finished one image: {@code Wrote n bytes ... at 0x... in s seconds (effective k kbit/s)}.
+     */
+    record FlashWritten(long address, long bytes, double seconds, double kbitPerSecond) implements ProgressEvent {
+    }
+}
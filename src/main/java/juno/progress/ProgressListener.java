@@ -0,0 +1,10 @@
+package juno.progress;
+
+/**
+ * Receives {@link ProgressEvent}s while a build or flash runs. Called from the output
+ * pump threads, so implementations must not block for long.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    void onEvent(ProgressEvent event);
+}
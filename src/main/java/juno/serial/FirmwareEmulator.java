@@ -0,0 +1,171 @@
+package juno.serial;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Plays the firmware JunoProjectCreator generates (main.c with juno_serial.c) on the
+ * device end of a transport, byte for byte:
+ * <ol>
+ *   <li>juno_serial_init() waits for a "flash" line and answers "thunder";</li>
+ *   <li>app_main() then loops: juno_serial_read() sends "juno_read", reads a line
+ *       (answering "thunder" again instead if it is "flash"), and app_main echoes it
+ *       followed by "hello world" and "new world".</li>
+ * </ol>
+ * A line "@&lt;id&gt; command" is a pipelined request: the command is handled like a plain
+ * line and the first message written after it is prefixed with "@&lt;id&gt; ". From the first
+ * such request on the "juno_read" prompt is no longer sent.
+ * Line length limits match the C buffers. Used to exercise the host side without a board.
+ */
+public class FirmwareEmulator implements AutoCloseable {
+
+    // Buffer sizes in juno_serial.c; snprintf into the 512-byte write buffer keeps at most
+    // 511 characters, so a long message loses its '\n' and merges with the next one
+    private static final int INIT_LINE_MAX = 64 - 1;
+    private static final int READ_LINE_MAX = 512 - 1;
+    private static final int WRITE_MAX = 512 - 1;
+
+    private final SerialTransport device;
+    private final Thread thread;
+    private volatile boolean closed;
+    private long currentId = -1;
+    private boolean pipelined;
+
+    private FirmwareEmulator(SerialTransport device) {
+        this.device = device;
+        this.thread = Thread.ofPlatform().daemon().name("firmware-emulator-" + device.name()).start(this::run);
+    }
+
+    /**
+     * Boots the emulated firmware on an open device-side transport.
+     */
+    public static FirmwareEmulator start(SerialTransport device) {
+        return new FirmwareEmulator(device);
+    }
+
+    /**
+     * A connected pipe pair with the firmware running on the device end; returns the host end.
+     */
+    public static PipeTransport startOnPipe() {
+        PipeTransport.Pair pair = PipeTransport.pair();
+        start(pair.device());
+        return pair.host();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        device.close();
+        thread.interrupt();
+    }
+
+    private void run() {
+        InputStream in = new BufferedInputStream(device.input());
+        OutputStream out = new BufferedOutputStream(device.output());
+        try {
+            // juno_serial_init(): block until "flash"
+            while (true) {
+                byte[] line = readLine(in, INIT_LINE_MAX);
+                if (line == null) return;
+                if (is(cString(line), "flash")) {
+                    writeRaw(out, "thunder\n");
+                    break;
+                }
+            }
+
+            // app_main()
+            while (!closed) {
+                if (!pipelined) writeRaw(out, "juno_read\n");
+                byte[] line = readLine(in, READ_LINE_MAX);
+                if (line == null) return;
+                line = cString(line);
+                if (is(line, "flash")) {
+                    currentId = -1;
+                    writeMessage(out, "thunder".getBytes(StandardCharsets.US_ASCII));
+                    line = null; // juno_serial_read() returns NULL
+                } else {
+                    line = untag(line);
+                }
+                writeMessage(out, line);
+                writeMessage(out, "hello world".getBytes(StandardCharsets.US_ASCII));
+                writeMessage(out, "new world".getBytes(StandardCharsets.US_ASCII));
+            }
+        } catch (IOException e) {
+            if (!closed && !(e instanceof InterruptedIOException)) {
+                System.err.println("❌ Firmware emulator stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    // Bytes up to '\n' without '\r', truncated like the C buffer; null at the end of the stream
+    private static byte[] readLine(InputStream in, int maxLen) throws IOException {
+        byte[] buf = new byte[maxLen];
+        int length = 0;
+        while (true) {
+            int b;
+            try {
+                b = in.read();
+            } catch (InterruptedIOException timeout) {
+                continue;
+            }
+            if (b < 0) return null;
+            if (b == '\n') return Arrays.copyOf(buf, length);
+            if (b != '\r' && length < maxLen) buf[length++] = (byte) b;
+        }
+    }
+
+    // juno_serial_untag(): "@<digits> <command>" sets the request id and yields the command
+    private byte[] untag(byte[] line) {
+        currentId = -1;
+        if (line.length == 0 || line[0] != '@') return line;
+        int i = 1;
+        long id = 0;
+        while (i < line.length && line[i] >= '0' && line[i] <= '9') {
+            id = Math.min(id * 10 + (line[i++] - '0'), Integer.MAX_VALUE); // strtol saturates at LONG_MAX
+        }
+        if (i == 1 || i == line.length || line[i] != ' ') return line;
+        currentId = id;
+        pipelined = true;
+        return Arrays.copyOfRange(line, i + 1, line.length);
+    }
+
+    private static boolean is(byte[] line, String text) {
+        return Arrays.equals(line, text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // The bytes C string functions see: up to the first NUL
+    private static byte[] cString(byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == 0) return Arrays.copyOf(bytes, i);
+        }
+        return bytes;
+    }
+
+    // juno_serial_write(): snprintf("[@<id> ]%s\n") into the write buffer, tagged with the pending
+    // request id; nothing for an untagged NULL or ""
+    private void writeMessage(OutputStream out, byte[] message) throws IOException {
+        message = message == null ? new byte[0] : cString(message);
+        if (currentId < 0 && message.length == 0) return;
+        ByteArrayOutputStream formatted = new ByteArrayOutputStream(message.length + 16);
+        if (currentId >= 0) {
+            formatted.writeBytes(("@" + currentId + " ").getBytes(StandardCharsets.US_ASCII));
+            currentId = -1;
+        }
+        formatted.writeBytes(message);
+        formatted.write('\n');
+        out.write(formatted.toByteArray(), 0, Math.min(formatted.size(), WRITE_MAX));
+        out.flush();
+    }
+
+    private static void writeRaw(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
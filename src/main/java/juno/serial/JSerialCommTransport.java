@@ -0,0 +1,58 @@
+package juno.serial;
+
+import com.fazecast.jSerialComm.SerialPort;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A serial port opened through jSerialComm, 8N1 without flow control.
+ */
+public class JSerialCommTransport implements SerialTransport {
+
+    private final String portName;
+    private final int baudRate;
+    private SerialPort port;
+
+    public JSerialCommTransport(String portName, int baudRate) {
+        this.portName = portName;
+        this.baudRate = baudRate;
+    }
+
+    @Override
+    public String name() {
+        return portName;
+    }
+
+    @Override
+    public void open() throws IOException {
+        port = SerialPort.getCommPort(portName);
+        port.setBaudRate(baudRate);
+        // Reads wait up to 500 ms, so a reader thread notices when it is closed
+        port.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING, 500, 500);
+        if (!port.openPort()) {
+            throw new IOException("Failed to open port: " + portName);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return port != null && port.isOpen();
+    }
+
+    @Override
+    public InputStream input() {
+        return port.getInputStream();
+    }
+
+    @Override
+    public OutputStream output() {
+        return port.getOutputStream();
+    }
+
+    @Override
+    public void close() {
+        if (isOpen()) port.closePort();
+    }
+}
@@ -1,19 +1,69 @@
 package juno.serial;
 
-import com.fazecast.jSerialComm.SerialPort;
 import juno.config.JunoConfig;
 import juno.config.JunoDetector;
+import juno.flasher.EsptoolWorker;
+import juno.jfr.SerialIoEvent;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Scanner;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class JunoSerial {
 
-    private SerialPort comPort;
+    // A request and its encoded "@<id> command\n" line
+    private record Request(long id, byte[] line, CompletableFuture<String> reply) {
+    }
+
+    private SerialTransport transport;
+    private String portName;
     private InputStream in;
     private OutputStream out;
+    private SerialLineReader reader;
+
+    // Pipelined requests, started by the first request()
+    private int requestWindow = Integer.getInteger("juno.requestWindow", 32);
+    private int requestWindowBytes = Integer.getInteger("juno.requestWindowBytes", 4096);
+    private final AtomicLong requestIds = new AtomicLong();
+    private final Map<Long, Request> inFlight = new ConcurrentHashMap<>();
+    private final BlockingQueue<Request> unsentRequests = new LinkedBlockingQueue<>();
+    private final ReentrantLock windowLock = new ReentrantLock();
+    private final Condition windowFree = windowLock.newCondition();
+    private int inFlightCount;
+    private int inFlightBytes;
+    private boolean requestsClosed; // set by disconnect(), guarded by windowLock
+    private Thread requestSender;
+    private ExecutorService replies;
+
+    /**
+     * Baud rate of the Juno protocol: -Djuno.serialBaud, default 115200. Must match
+     * CONFIG_JUNO_SERIAL_BAUD of the firmware.
+     */
+    public static int baudRate() {
+        return Integer.getInteger("juno.serialBaud", 115200);
+    }
 
     public boolean connect() {
         // Get port from config or fallback to auto-detection
@@ -26,117 +76,374 @@ public class JunoSerial {
             }
             System.out.println("⚠️ Using auto-detected port: " + portName);
         }
+        return connect(new JSerialCommTransport(portName, baudRate()));
+    }
 
-        comPort = SerialPort.getCommPort(portName);
-        comPort.setBaudRate(115200);
-        comPort.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING, 500, 500);
-
-        if (!comPort.openPort()) {
-            System.err.println("❌ Failed to open port: " + portName);
+    /**
+     * Connects over any transport, e.g. a pipe to a {@link FirmwareEmulator}.
+     */
+    public boolean connect(SerialTransport transport) {
+        // An esptool worker may still hold the board in its flasher stub
+        if (transport instanceof JSerialCommTransport) EsptoolWorker.releaseShared(transport.name());
+        try {
+            transport.open();
+        } catch (IOException e) {
+            System.err.println("❌ " + e.getMessage());
             return false;
         }
-        in = comPort.getInputStream();
-        out = comPort.getOutputStream();
+        this.transport = transport;
+        this.portName = transport.name();
+        in = transport.input();
+        out = transport.output();
+        reader = new SerialLineReader(in, portName, Integer.getInteger("juno.serialQueueLines", 1024));
         return true;
     }
 
     public void startTerminal() {
-        if (comPort == null || !comPort.isOpen()) {
+        startTerminal(System.in, System.out);
+    }
+
+    /**
+     * Full-duplex terminal: device output is printed as it arrives while console lines are
+     * sent as soon as they are typed, each direction on its own virtual thread. Typed lines
+     * wait in a bounded queue (-Djuno.terminalQueueLines, default 64) while the port is
+     * busy. Ends on "exit", at the end of the console input or when the port closes.
+     */
+    public void startTerminal(InputStream console, PrintStream display) {
+        if (transport == null || !transport.isOpen()) {
             System.err.println("❌ Port not open.");
             return;
         }
 
-        try (Scanner scanner = new Scanner(System.in)) {
-            while (true) {
-                String response = readLine();
-                // 🔹 Always print whatever ESP32 sends
-                if (response != null && !response.isBlank()) {
-                    if (!response.trim().equals("juno_read")) {
-                        System.out.println("esp32:" + response.trim());
-                    }
-                }
-
-                // 🔹 But only ask for input when ESP says "juno_read"
-                if (response != null && response.trim().equalsIgnoreCase("juno_read")) {
-                    System.out.print(">> ");
-                    String line = scanner.nextLine();
+        BlockingQueue<String> outgoing = new ArrayBlockingQueue<>(Integer.getInteger("juno.terminalQueueLines", 64));
+        AtomicInteger unsent = new AtomicInteger();
+        AtomicLong lastOutput = new AtomicLong(System.nanoTime());
+        CountDownLatch done = new CountDownLatch(1);
 
-                    if (line.equalsIgnoreCase("exit")) break;
+        // Device → console; the firmware's juno_read prompt is not shown
+        Thread deviceToConsole = Thread.ofVirtual().name("terminal-device-" + portName).start(() -> {
+            String line;
+            while ((line = readLine()) != null) {
+                lastOutput.set(System.nanoTime());
+                if (!line.isBlank() && !line.equals("juno_read")) display.println("esp32: " + line);
+            }
+            done.countDown();
+        });
 
-                    send(line + "\n");
-                    String reply = readLine();
+        // Console → queue, without waiting for a prompt
+        Thread consoleToQueue = Thread.ofVirtual().name("terminal-console").start(() -> {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(console, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = lines.readLine()) != null && !line.equalsIgnoreCase("exit")) {
+                    unsent.incrementAndGet();
+                    outgoing.put(line);
+                }
+            } catch (IOException e) {
+                System.err.println("❌ Failed to read console input: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
 
-                    if (reply != null && !reply.isBlank()) {
-                        if (!reply.trim().equals("juno_read")) {
-                            System.out.println("esp32: " + reply.trim());
-                        }
-                    } else {
-                        System.out.println("⚠️ ESP32 did not reply after command.");
-                    }
-                } else {
-                    Thread.sleep(100);
+        // Queue → device
+        Thread queueToDevice = Thread.ofVirtual().name("terminal-send-" + portName).start(() -> {
+            try {
+                while (true) {
+                    send(outgoing.take());
+                    unsent.decrementAndGet();
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+        });
+
+        try {
+            done.await();
+            // On "exit", send what was typed before it and show the replies until the device goes quiet
+            long deadline = System.nanoTime() + 2_000_000_000L;
+            while (transport.isOpen() && System.nanoTime() < deadline
+                    && (unsent.get() > 0 || System.nanoTime() - lastOutput.get() < 200_000_000L)) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
+            queueToDevice.interrupt();
+            consoleToQueue.interrupt();
             ceasePort();
+            deviceToConsole.interrupt();
         }
     }
 
-
     public void ceasePort() {
-        if (comPort != null && comPort.isOpen()) {
-            try {
-                in.close();
-                out.close();
-            } catch (Exception ignored) {
-            }
-            comPort.closePort();
+        if (transport != null && transport.isOpen()) {
+            disconnect();
             System.out.println("🔌 Port closed.");
         }
     }
 
     public void disconnect() {
-        if (comPort != null && comPort.isOpen()) {
+        if (transport != null && transport.isOpen()) {
+            stopRequests();
+            reader.close();
             try {
                 in.close();
                 out.close();
             } catch (Exception ignored) {
             }
-            comPort.closePort();
+            transport.close();
         }
     }
 
     public void send(String message) {
+        write((message + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private synchronized void write(byte[] bytes) {
+        SerialIoEvent event = ioEvent("write");
         try {
-            out.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+            out.write(bytes);
             out.flush();
+            event.bytes = bytes.length;
+            event.commit();
         } catch (Exception e) {
             System.err.println("❌ Failed to send: " + e.getMessage());
         }
     }
 
+    /**
+     * Waits for the next line from the board. Returns null if the port was closed.
+     */
     public String readLine() {
-        StringBuilder sb = new StringBuilder();
+        try {
+            String line = reader.readLine();
+            return line != null ? line.trim() : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Maximum number of requests sent but not answered yet (-Djuno.requestWindow, default 32).
+     * Takes effect if set before the first {@link #request}.
+     */
+    public void setRequestWindow(int requestWindow) {
+        if (requestWindow < 1) throw new IllegalArgumentException("Request window must be at least 1");
+        this.requestWindow = requestWindow;
+    }
+
+    /**
+     * Maximum bytes of requests sent but not answered yet (-Djuno.requestWindowBytes, default
+     * 4096). The UART has no flow control, so this must not exceed the firmware's receive
+     * buffer, CONFIG_JUNO_SERIAL_RX_BUFFER; a single larger request is still sent on its own.
+     */
+    public void setRequestWindowBytes(int requestWindowBytes) {
+        if (requestWindowBytes < 1) throw new IllegalArgumentException("Request window must be at least 1 byte");
+        this.requestWindowBytes = requestWindowBytes;
+    }
+
+    /**
+     * {@link #request(String, Duration)} with the default timeout (-Djuno.requestTimeoutMs, default 5000).
+     */
+    public CompletableFuture<String> request(String command) {
+        return request(command, Duration.ofMillis(Long.getLong("juno.requestTimeoutMs", 5000)));
+    }
+
+    /**
+     * Sends {@code command} as "@&lt;id&gt; command" and completes with the firmware's reply, the
+     * line it tags with the same id. Requests are pipelined up to the request window (a
+     * number of requests and of bytes); later ones wait for room without blocking the caller.
+     * Fails with a TimeoutException if there is no reply within {@code timeout} of this call.
+     * Untagged firmware output, and tagged lines no pending request is waiting for, still go
+     * to {@link #readLine()}; read them, or the reader stops once its queue is full.
+     */
+    public CompletableFuture<String> request(String command, Duration timeout) {
+        if (command.indexOf('\n') >= 0 || command.indexOf('\r') >= 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Request must be a single line"));
+        }
+        if (transport == null || !transport.isOpen()) {
+            return CompletableFuture.failedFuture(new IOException("Port not open."));
+        }
+        startRequests();
+
+        // Ids stay within the firmware's 32-bit long
+        long id = requestIds.getAndIncrement() & Integer.MAX_VALUE;
+        Request request = new Request(id, ("@" + id + " " + command + "\n").getBytes(StandardCharsets.UTF_8),
+                new CompletableFuture<>());
+        request.reply().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).whenComplete((r, e) -> {
+            // Timed out or cancelled on the wire: give its room to the next request
+            if (inFlight.remove(id, request)) releaseWindow(request);
+        });
+        unsentRequests.add(request);
+        return request.reply();
+    }
+
+    private synchronized void startRequests() {
+        if (requestSender != null) return;
+        setRequestsClosed(false);
+        replies = Executors.newVirtualThreadPerTaskExecutor();
+        reader.intercept(this::onTaggedLine);
+        requestSender = Thread.ofVirtual().name("request-sender-" + portName).start(this::sendRequests);
+    }
+
+    // Sends waiting requests as the window frees up, all that fit in one write
+    private void sendRequests() {
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        Request request = null;
         try {
             while (true) {
-                if (in.available() > 0) {
-                    int b = in.read();
-                    if (b == -1) break;
-                    if (b == '\n') break;
-                    if (b != '\r') sb.append((char) b);
-                } else {
-                    Thread.sleep(10); // wait for bytes to arrive
+                request = unsentRequests.take();
+                if (!acquireWindow(request)) {
+                    request.reply().completeExceptionally(new IOException("Port closed."));
+                    return;
                 }
+                batch.reset();
+                while (request != null) {
+                    if (startRequest(request)) {
+                        batch.writeBytes(request.line());
+                    } else {
+                        releaseWindow(request);
+                    }
+                    request = unsentRequests.peek(); // this thread is the only consumer
+                    if (request == null || !tryAcquireWindow(request)) break;
+                    if (unsentRequests.poll() == null) {
+                        releaseWindow(request); // dropped by disconnect()
+                        break;
+                    }
+                }
+                if (batch.size() > 0) write(batch.toByteArray());
+                request = null;
             }
-            return sb.toString().trim();
-        } catch (Exception e) {
-            System.err.println("❌ Failed to read line: " + e.getMessage());
-            return null;
+        } catch (InterruptedException e) {
+            // Stopped while this one waited for room: neither queued nor in flight any more
+            if (request != null) request.reply().completeExceptionally(new IOException("Port closed."));
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The first request always fits, however long, so nothing waits forever
+    private boolean fitsWindow(Request request) {
+        return inFlightCount == 0
+                || inFlightCount < requestWindow && inFlightBytes + request.line().length <= requestWindowBytes;
+    }
+
+    // False once disconnect() has started: the request must not be sent any more
+    private boolean acquireWindow(Request request) throws InterruptedException {
+        windowLock.lock();
+        try {
+            while (!requestsClosed && !fitsWindow(request)) windowFree.await();
+            if (requestsClosed) return false;
+            inFlightCount++;
+            inFlightBytes += request.line().length;
+            return true;
+        } finally {
+            windowLock.unlock();
+        }
+    }
+
+    private boolean tryAcquireWindow(Request request) {
+        windowLock.lock();
+        try {
+            if (requestsClosed || !fitsWindow(request)) return false;
+            inFlightCount++;
+            inFlightBytes += request.line().length;
+            return true;
+        } finally {
+            windowLock.unlock();
         }
     }
 
+    private void releaseWindow(Request request) {
+        windowLock.lock();
+        try {
+            inFlightCount--;
+            inFlightBytes -= request.line().length;
+            windowFree.signalAll();
+        } finally {
+            windowLock.unlock();
+        }
+    }
+
+    // Registers a request as in flight, unless it already timed out while waiting or the
+    // port is closing; checked under windowLock so disconnect() cannot miss it
+    private boolean startRequest(Request request) {
+        windowLock.lock();
+        try {
+            if (requestsClosed) {
+                request.reply().completeExceptionally(new IOException("Port closed."));
+                return false;
+            }
+            inFlight.put(request.id(), request);
+        } finally {
+            windowLock.unlock();
+        }
+        return !request.reply().isDone() || !inFlight.remove(request.id(), request);
+    }
+
+    private void setRequestsClosed(boolean closed) {
+        windowLock.lock();
+        try {
+            requestsClosed = closed;
+            if (!closed) {
+                // A new sender starts with an empty window
+                inFlightCount = 0;
+                inFlightBytes = 0;
+            }
+            windowFree.signalAll();
+        } finally {
+            windowLock.unlock();
+        }
+    }
+
+    // On the reader thread: "@<id> reply" of a pending request completes it off that thread;
+    // every other line goes to the queue
+    private boolean onTaggedLine(String line) {
+        if (!line.startsWith("@")) return false;
+        int space = line.indexOf(' ');
+        long id;
+        try {
+            id = Long.parseLong(line, 1, space < 0 ? line.length() : space, 10);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        Request request = inFlight.remove(id);
+        if (request == null) return false;
+        releaseWindow(request);
+        String payload = space < 0 ? "" : line.substring(space + 1).trim();
+        replies.execute(() -> request.reply().complete(payload));
+        return true;
+    }
+
+    private synchronized void stopRequests() {
+        if (requestSender == null) return;
+        // Closed first: a request the sender holds is then failed rather than started
+        setRequestsClosed(true);
+        requestSender.interrupt();
+        try {
+            requestSender.join(Duration.ofSeconds(1)); // a write may still be under way
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<CompletableFuture<String>> open = new ArrayList<>();
+        inFlight.values().forEach(r -> open.add(r.reply()));
+        inFlight.clear();
+        unsentRequests.forEach(r -> open.add(r.reply()));
+        unsentRequests.clear();
+        IOException closed = new IOException("Port closed.");
+        open.forEach(f -> f.completeExceptionally(closed));
+        replies.shutdown();
+        requestSender = null;
+    }
+
+    private SerialIoEvent ioEvent(String direction) {
+        SerialIoEvent event = new SerialIoEvent();
+        event.port = portName;
+        event.direction = direction;
+        event.begin();
+        return event;
+    }
 
     // Flash → Thunder handshake
     private boolean isEspConnected() {
@@ -146,17 +453,36 @@ public class JunoSerial {
     }
 
     public static void startJunoSerial() throws InterruptedException {
+        JunoSerial js = connectAndHandshake();
+        if (js != null) js.startTerminal();
+    }
+
+    /**
+     * Opens the configured port and performs the flash → thunder handshake.
+     * Returns the connected instance, or null if the board did not answer.
+     */
+    public static JunoSerial connectAndHandshake() throws InterruptedException {
         Thread.sleep(500);
-        JunoSerial js = new JunoSerial();
-        if (js.connect()) {
+        return handshake(new JunoSerial(), null);
+    }
+
+    /**
+     * Like {@link #connectAndHandshake()}, over the given transport.
+     */
+    public static JunoSerial connectAndHandshake(SerialTransport transport) {
+        return handshake(new JunoSerial(), transport);
+    }
+
+    private static JunoSerial handshake(JunoSerial js, SerialTransport transport) {
+        if (transport == null ? js.connect() : js.connect(transport)) {
             if (js.isEspConnected()) {
                 System.out.println("⚡ ESP32 is connected and ready (thunder received).");
-                js.startTerminal();
-            } else {
-                js.disconnect();
+                return js;
             }
+            js.disconnect();
         } else {
             System.err.println("❌ Could not connect to ESP32.");
         }
+        return null;
     }
 }
@@ -0,0 +1,210 @@
+package juno.serial;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One end of an in-memory, full-duplex byte channel. {@link #pair()} connects a host end
+ * to a device end, e.g. for a {@link FirmwareEmulator}. Unlike PipedInputStream the
+ * ends can be used from any threads, including virtual threads.
+ */
+public class PipeTransport implements SerialTransport {
+
+    /**
+     * Both ends of one channel: what the host writes the device reads, and vice versa.
+     */
+    public record Pair(PipeTransport host, PipeTransport device) {
+    }
+
+    private final String name;
+    private final Pipe incoming;
+    private final Pipe outgoing;
+    private final InputStream in;
+    private final OutputStream out;
+
+    private PipeTransport(String name, Pipe incoming, Pipe outgoing) {
+        this.name = name;
+        this.incoming = incoming;
+        this.outgoing = outgoing;
+        this.in = incoming.input();
+        this.out = outgoing.output();
+    }
+
+    public static Pair pair() {
+        return pair(64 * 1024);
+    }
+
+    /**
+     * A channel buffering up to {@code capacity} bytes per direction; writers block when it is full.
+     */
+    public static Pair pair(int capacity) {
+        Pipe toDevice = new Pipe(capacity);
+        Pipe toHost = new Pipe(capacity);
+        return new Pair(new PipeTransport("pipe:host", toHost, toDevice), new PipeTransport("pipe:device", toDevice, toHost));
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void open() {
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !incoming.isClosed() && !outgoing.isClosed();
+    }
+
+    @Override
+    public InputStream input() {
+        return in;
+    }
+
+    @Override
+    public OutputStream output() {
+        return out;
+    }
+
+    /**
+     * Closes both directions; the other end reads -1 and its writes fail.
+     */
+    @Override
+    public void close() {
+        incoming.close();
+        outgoing.close();
+    }
+
+    // A bounded ring buffer with blocking reads and writes
+    private static final class Pipe {
+        private final byte[] buffer;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private int head;
+        private int size;
+        private boolean closed;
+
+        Pipe(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        boolean isClosed() {
+            lock.lock();
+            try {
+                return closed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            lock.lock();
+            try {
+                while (size == 0 && !closed) notEmpty.await();
+                if (size == 0) return -1;
+                int n = Math.min(len, size);
+                int first = Math.min(n, buffer.length - head);
+                System.arraycopy(buffer, head, b, off, first);
+                System.arraycopy(buffer, 0, b, off + first, n - first);
+                head = (head + n) % buffer.length;
+                size -= n;
+                notFull.signalAll();
+                return n;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void write(byte[] b, int off, int len) throws IOException {
+            lock.lock();
+            try {
+                while (len > 0) {
+                    while (size == buffer.length && !closed) notFull.await();
+                    if (closed) throw new IOException("Pipe closed");
+                    int tail = (head + size) % buffer.length;
+                    int n = Math.min(len, Math.min(buffer.length - size, buffer.length - tail));
+                    System.arraycopy(b, off, buffer, tail, n);
+                    size += n;
+                    off += n;
+                    len -= n;
+                    notEmpty.signalAll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        InputStream input() {
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return Pipe.this.read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return Pipe.this.read(b, off, len);
+                }
+
+                @Override
+                public int available() {
+                    lock.lock();
+                    try {
+                        return size;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+
+                @Override
+                public void close() {
+                    Pipe.this.close();
+                }
+            };
+        }
+
+        OutputStream output() {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    Pipe.this.write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    Pipe.this.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    Pipe.this.close();
+                }
+            };
+        }
+    }
+}
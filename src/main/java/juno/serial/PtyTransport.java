@@ -0,0 +1,76 @@
+package juno.serial;
+
+import juno.process.ProcessRunner;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A Linux pseudo-terminal such as /dev/pts/7, e.g. one end of
+ * {@code socat pty,raw,echo=0,link=/tmp/esp pty,raw,echo=0,link=/tmp/host}. The
+ * terminal is switched to raw mode without echo, so bytes pass through unchanged.
+ */
+public class PtyTransport implements SerialTransport {
+
+    private final Path device;
+    private InputStream in;
+    private OutputStream out;
+
+    public PtyTransport(Path device) {
+        this.device = device;
+    }
+
+    @Override
+    public String name() {
+        return device.toString();
+    }
+
+    @Override
+    public void open() throws IOException {
+        try {
+            ProcessRunner.Result result = ProcessRunner.command(List.of("stty", "-F", device.toString(), "raw", "-echo"))
+                    .onOutput(line -> {
+                    })
+                    .run();
+            if (!result.succeeded()) {
+                throw new IOException("Cannot switch " + device + " to raw mode, " + result.describeFailure());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while configuring " + device, e);
+        }
+        in = new FileInputStream(device.toFile());
+        out = new FileOutputStream(device.toFile());
+    }
+
+    @Override
+    public boolean isOpen() {
+        return in != null;
+    }
+
+    @Override
+    public InputStream input() {
+        return in;
+    }
+
+    @Override
+    public OutputStream output() {
+        return out;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (in != null) in.close();
+            if (out != null) out.close();
+        } catch (IOException ignored) {
+        }
+        in = null;
+        out = null;
+    }
+}
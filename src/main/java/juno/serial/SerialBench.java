@@ -0,0 +1,129 @@
+package juno.serial;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Request/response round trips through {@link JunoSerial} against the generated
+ * firmware (or its {@link FirmwareEmulator}): send a line, wait for its echo. Shared by
+ * {@code juno bench serial} and the JMH benchmarks in bench/.
+ *
+ * <p>The firmware echoes at most 511 bytes of a line (its 512-byte buffer); a longer echo
+ * loses its newline and runs into the next line. Echoes are therefore matched by their
+ * "#&lt;seq&gt;:" prefix.
+ *
+ * <p>{@link #runPipelined} issues all requests at once through {@link JunoSerial#request}
+ * and lets its window bound how many are on the wire.
+ */
+public class SerialBench {
+
+    public static final int[] DEFAULT_SIZES = {8, 64, 512, 4096};
+
+    /**
+     * Round trips of one message size: throughput and latency percentiles in nanoseconds.
+     */
+    public record Result(int size, int requests, double requestsPerSecond, double kibPerSecond,
+                         long p50, long p90, long p99, long max) {
+    }
+
+    private int seq;
+
+    /**
+     * Runs {@code warmup} untimed and then {@code requests} timed round trips of {@code size}-byte messages.
+     */
+    public Result run(JunoSerial serial, int size, int requests, int warmup) {
+        for (int i = 0; i < warmup; i++) roundTrip(serial, size);
+
+        long[] latencies = new long[requests];
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) latencies[i] = roundTrip(serial, size);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        double seconds = elapsed / 1e9;
+        return new Result(size, requests, requests / seconds, requests * (double) size / 1024 / seconds,
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                latencies[latencies.length - 1]);
+    }
+
+    /**
+     * Like {@link #run}, with every round trip a {@link JunoSerial#request} submitted up front.
+     * Latencies run from submission, so they include the wait for a window slot.
+     */
+    public Result runPipelined(JunoSerial serial, int size, int requests, int warmup) {
+        pipeline(serial, size, new long[warmup]);
+
+        long[] latencies = new long[requests];
+        long start = System.nanoTime();
+        pipeline(serial, size, latencies);
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        double seconds = elapsed / 1e9;
+        return new Result(size, requests, requests / seconds, requests * (double) size / 1024 / seconds,
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                latencies[latencies.length - 1]);
+    }
+
+    // latencies.length requests at once; waits for all replies while discarding the untagged
+    // output, which would otherwise fill the reader's queue and stall the replies behind it
+    private void pipeline(JunoSerial serial, int size, long[] latencies) {
+        Thread drain = Thread.ofVirtual().start(() -> {
+            while (!Thread.currentThread().isInterrupted() && serial.readLine() != null) {
+                // prompts and logs are not part of the measurement
+            }
+        });
+        try {
+            submit(serial, size, latencies);
+        } finally {
+            drain.interrupt();
+        }
+    }
+
+    private void submit(JunoSerial serial, int size, long[] latencies) {
+        CompletableFuture<?>[] replies = new CompletableFuture<?>[latencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            int index = i;
+            String message = message(seq++, size);
+            String tag = message.substring(0, message.indexOf(':') + 1);
+            long start = System.nanoTime();
+            replies[i] = serial.request(message, Duration.ofSeconds(30)).thenAccept(reply -> {
+                latencies[index] = System.nanoTime() - start;
+                if (!reply.startsWith(tag)) throw new IllegalStateException("Reply to " + tag + " was " + reply);
+            });
+        }
+        CompletableFuture.allOf(replies).join();
+    }
+
+    /**
+     * Sends one message and waits for its echo, skipping the prompt and the other firmware output.
+     * Returns the round trip in nanoseconds.
+     */
+    public long roundTrip(JunoSerial serial, int size) {
+        String message = message(seq++, size);
+        String tag = message.substring(0, message.indexOf(':') + 1);
+        long start = System.nanoTime();
+        serial.send(message);
+        while (true) {
+            String line = serial.readLine();
+            if (line == null) throw new IllegalStateException("Port closed while waiting for the echo of " + tag);
+            if (line.startsWith(tag)) return System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * "#&lt;seq&gt;:" padded with printable ASCII to {@code size} bytes (longer if the tag does not fit).
+     */
+    public static String message(int seq, int size) {
+        StringBuilder sb = new StringBuilder(size).append('#').append(seq).append(':');
+        while (sb.length() < size) sb.append((char) ('a' + sb.length() % 26));
+        return sb.toString();
+    }
+
+    // Nearest-rank percentile of an ascending array
+    static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
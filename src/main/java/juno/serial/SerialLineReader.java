@@ -0,0 +1,174 @@
+package juno.serial;
+
+import juno.jfr.SerialIoEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Reads a serial input stream on its own thread and hands out complete lines.
+ * Bytes are read in bulk into one reusable buffer and decoded as UTF-8, so a multi-byte
+ * character split across two reads is decoded correctly. Lines (without the CR/LF)
+ * go to a bounded queue; when it is full the reader stops reading and the data waits
+ * in the driver's buffer until the consumer catches up.
+ *
+ * <p>An {@link #intercept interceptor} sees every line first, on the reader thread.
+ */
+public class SerialLineReader implements AutoCloseable {
+
+    // Queued after the last line once the stream has ended; compared by identity
+    private static final String END = new String("<end>");
+
+    private final InputStream in;
+    private final String portName;
+    private final BlockingQueue<String> lines;
+    private final ByteBuffer bytes = ByteBuffer.allocate(4096);
+    private final CharBuffer chars = CharBuffer.allocate(4096);
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder line = new StringBuilder(256);
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile boolean ended;
+    private volatile Predicate<String> interceptor;
+
+    /**
+     * Starts reading {@code in}; at most {@code capacity} unread lines are buffered.
+     */
+    public SerialLineReader(InputStream in, String portName, int capacity) {
+        this.in = in;
+        this.portName = portName;
+        this.lines = new ArrayBlockingQueue<>(capacity);
+        // A platform thread: the native read would pin a virtual thread's carrier anyway
+        this.thread = Thread.ofPlatform().daemon().name("serial-reader-" + portName).start(this::readLoop);
+    }
+
+    /**
+     * Waits for the next line. Returns null once the stream has ended and every line was read.
+     */
+    public String readLine() throws InterruptedException {
+        if (ended && lines.isEmpty()) return null;
+        return unwrap(lines.take());
+    }
+
+    /**
+     * Waits at most {@code timeout} for the next line; returns null on timeout or at the end of the stream.
+     */
+    public String readLine(Duration timeout) throws InterruptedException {
+        if (ended && lines.isEmpty()) return null;
+        return unwrap(lines.poll(timeout.toNanos(), TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Drops lines that arrived but were not read yet.
+     */
+    public void clear() {
+        lines.removeIf(l -> l != END);
+    }
+
+    /**
+     * Offers each line to {@code interceptor} before queueing it; lines it returns true for
+     * are consumed. It runs on the reader thread and must not block. Other lines are queued
+     * as usual, so a full queue still holds the reader back.
+     */
+    public void intercept(Predicate<String> interceptor) {
+        this.interceptor = interceptor;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+    }
+
+    private String unwrap(String next) {
+        if (next != END) return next;
+        lines.offer(END); // later readers see the end too
+        return null;
+    }
+
+    private void readLoop() {
+        try {
+            while (!closed) {
+                int n;
+                try {
+                    n = in.read(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                } catch (InterruptedIOException timeout) {
+                    continue; // read timeout of the port with nothing received
+                }
+                if (n < 0) break;
+                if (n == 0) continue;
+
+                SerialIoEvent event = new SerialIoEvent();
+                event.port = portName;
+                event.direction = "read";
+                event.bytes = n;
+                event.commit();
+
+                bytes.position(bytes.position() + n);
+                bytes.flip();
+                decode(false);
+                bytes.compact();
+            }
+            bytes.flip();
+            decode(true);
+            decoder.flush(chars);
+            drainChars();
+            if (!line.isEmpty()) emit();
+        } catch (IOException e) {
+            if (!closed) System.err.println("❌ Serial read failed on " + portName + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ended = true;
+            lines.offer(END);
+        }
+    }
+
+    // Decodes the buffered bytes, keeping an incomplete trailing sequence for the next read
+    private void decode(boolean endOfInput) throws InterruptedException {
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            drainChars();
+            if (!result.isOverflow()) return;
+        }
+    }
+
+    private void drainChars() throws InterruptedException {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (c == '\n') {
+                emit();
+            } else if (c != '\r') {
+                line.append(c);
+            }
+        }
+        chars.clear();
+    }
+
+    private void emit() throws InterruptedException {
+        String text = line.toString();
+        line.setLength(0);
+        Predicate<String> hook = interceptor;
+        if (hook != null && hook.test(text)) return;
+        lines.put(text);
+    }
+}
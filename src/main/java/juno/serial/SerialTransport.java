@@ -0,0 +1,36 @@
+package juno.serial;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A byte channel to a board: a jSerialComm port ({@link JSerialCommTransport}), a Linux
+ * pseudo-terminal ({@link PtyTransport}) or an in-memory pipe ({@link PipeTransport}),
+ * so the handshake, terminal and protocol code can run without hardware.
+ */
+public interface SerialTransport extends AutoCloseable {
+
+    /**
+     * A name for messages and JFR events, e.g. the port name.
+     */
+    String name();
+
+    /**
+     * Opens the channel; {@link #input()} and {@link #output()} are usable afterwards.
+     */
+    void open() throws IOException;
+
+    boolean isOpen();
+
+    /**
+     * Reads block until data arrives, may end early with an
+     * {@link java.io.InterruptedIOException} on a read timeout, and return -1 once closed.
+     */
+    InputStream input();
+
+    OutputStream output();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,47 @@
+package juno.builder;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class IdfEnvironmentTest {
+
+    private static final String SEP = File.pathSeparator;
+
+    @Test
+    void keepsOnlyWhatTheExportChanged() {
+        Map<String, String> before = Map.of("HOME", "/home/me", "GITHUB_TOKEN", "secret", "PATH", "/usr/bin");
+        Map<String, String> after = Map.of("HOME", "/home/me", "GITHUB_TOKEN", "secret",
+                "PATH", "/idf/tools" + SEP + "/usr/bin", "IDF_PATH", "/idf");
+
+        IdfEnvironment export = IdfEnvironment.diff(before, after);
+        Map<String, String> env = export.applyTo(Map.of());
+
+        assertEquals(Map.of("PATH", "/idf/tools", "IDF_PATH", "/idf"), env);
+        assertFalse(env.containsKey("GITHUB_TOKEN"));
+    }
+
+    @Test
+    void appliesOnTopOfTheCurrentEnvironment() {
+        IdfEnvironment export = IdfEnvironment.diff(Map.of("PATH", "/usr/bin", "HTTPS_PROXY", "old"),
+                Map.of("PATH", "/idf/tools" + SEP + "/usr/bin", "HTTPS_PROXY", "old", "IDF_PATH", "/idf"));
+
+        Map<String, String> env = export.applyTo(Map.of("PATH", "/opt/bin" + SEP + "/usr/bin", "HTTPS_PROXY", "new"));
+
+        assertEquals("/idf/tools" + SEP + "/opt/bin" + SEP + "/usr/bin", env.get("PATH"));
+        assertEquals("new", env.get("HTTPS_PROXY"));
+        assertEquals("/idf", env.get("IDF_PATH"));
+    }
+
+    @Test
+    void replacedValueIsSetAsIs() {
+        IdfEnvironment export = IdfEnvironment.diff(Map.of("IDF_PYTHON_ENV_PATH", "/old/env"),
+                Map.of("IDF_PYTHON_ENV_PATH", "/idf/env"));
+
+        assertEquals("/idf/env", export.applyTo(Map.of("IDF_PYTHON_ENV_PATH", "/other")).get("IDF_PYTHON_ENV_PATH"));
+    }
+}
@@ -0,0 +1,47 @@
+package juno.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemVerTest {
+
+    @Test
+    void ordersPreReleasesLikeEspIdf() {
+        List<String> sorted = Stream.of("v5.4", "v5.4-rc10", "v5.4-beta1", "v5.4-rc2", "v5.4-dev", "v5.4-beta2",
+                        "v5.4-rc1", "v5.3.2")
+                .sorted((a, b) -> SemVer.parse(a).compareTo(SemVer.parse(b)))
+                .toList();
+
+        assertEquals(List.of("v5.3.2", "v5.4-dev", "v5.4-beta1", "v5.4-beta2", "v5.4-rc1", "v5.4-rc2", "v5.4-rc10",
+                "v5.4"), sorted);
+    }
+
+    @Test
+    void pinMatchesGivenComponents() {
+        SemVer version = SemVer.parse("esp-idf-v5.2.1");
+        assertTrue(version.matches("5.2"));
+        assertTrue(version.matches("v5.2.1"));
+        assertFalse(version.matches("5.3"));
+        assertFalse(version.matches("5.10000000000"));
+    }
+
+    @Test
+    void oversizedComponentsDoNotBreakPathOrder() {
+        SemVer huge = SemVer.parse("v5.10000000000");
+        assertEquals(Integer.MAX_VALUE, huge.minor());
+        assertTrue(huge.compareTo(SemVer.parse("v5.4")) > 0);
+
+        Path newest = Stream.of("/esp/v5.10000000000/bin", "/esp/v5.4/bin", "/esp/v5.99999999999999999999/bin")
+                .map(Path::of)
+                .max(SemVer.PATH_ORDER)
+                .orElseThrow();
+        assertEquals(Path.of("/esp/v5.99999999999999999999/bin"), newest);
+    }
+}
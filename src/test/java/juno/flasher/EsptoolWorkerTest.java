@@ -0,0 +1,114 @@
+package juno.flasher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EsptoolWorkerTest {
+
+    @TempDir
+    Path buildDir;
+
+    private FlashImage image;
+    private EsptoolWorker worker;
+    private final List<String> log = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(buildDir.resolve("app.bin"), new byte[]{1, 2, 3});
+        Files.writeString(buildDir.resolve("flasher_args.json"), """
+                {"write_flash_args": ["--flash_mode", "dio"],
+                 "flash_files": {"0x10000": "app.bin"},
+                 "extra_esptool_args": {"chip": "esp32"}}
+                """);
+        image = FlashImage.fromBuildDir(buildDir);
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        worker = EsptoolWorker.start(List.of(java, "-cp", System.getProperty("java.class.path"),
+                FakeEsptoolWorker.class.getName()), null);
+        worker.setHold(Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.close();
+    }
+
+    @Test
+    void keepsTheStubBetweenWritesUntilReleased() throws IOException {
+        worker.write("/dev/ttyUSB0", "460800", image, image.partitions(), log::add);
+        worker.write("/dev/ttyUSB0", "460800", image, image.partitions(), log::add);
+        assertTrue(worker.holds("/dev/ttyUSB0"));
+
+        worker.release("/dev/ttyUSB0", log::add);
+        assertFalse(worker.holds("/dev/ttyUSB0"));
+        worker.write("/dev/ttyUSB0", "460800", image, image.partitions(), log::add);
+
+        assertEquals(List.of("stub uploaded to /dev/ttyUSB0", "write 1 file(s)",
+                "stub reused on /dev/ttyUSB0", "write 1 file(s)",
+                "hard reset /dev/ttyUSB0",
+                "stub uploaded to /dev/ttyUSB0", "write 1 file(s)"), log);
+    }
+
+    @Test
+    void releasesAnIdlePort() throws Exception {
+        worker.setHold(Duration.ofMillis(100));
+        worker.write("/dev/ttyUSB0", "460800", image, image.partitions(), log::add);
+        for (int i = 0; i < 100 && worker.holds("/dev/ttyUSB0"); i++) Thread.sleep(20);
+
+        assertFalse(worker.holds("/dev/ttyUSB0"));
+        worker.write("/dev/ttyUSB0", "460800", image, image.partitions(), log::add);
+        assertEquals("stub uploaded to /dev/ttyUSB0", log.get(2));
+    }
+
+    @Test
+    void errorReplyFailsTheCommandButKeepsTheWorker() throws IOException {
+        IOException e = assertThrows(IOException.class,
+                () -> worker.write("fail", "460800", image, image.partitions(), log::add));
+        assertEquals("esptool worker: Failed to connect to ESP32", e.getMessage());
+        assertFalse(worker.verify("fail", "460800", image, log::add));
+        assertFalse(worker.holds("fail"));
+        assertTrue(worker.isAlive());
+    }
+
+    @Test
+    void separatesLogLinesFromStrayOutput() throws IOException {
+        worker.write("chatty", "460800", image, image.partitions(), log::add);
+
+        assertEquals(List.of("WARNING: stray library output", "Writing at 0x00010000", "[1, 2]",
+                "Hash of data verified."), log);
+    }
+
+    @Test
+    void workerExitingMidCommandFails() {
+        IOException e = assertThrows(IOException.class,
+                () -> worker.write("die", "460800", image, image.partitions(), log::add));
+        assertTrue(e.getMessage().contains("exited unexpectedly"), e.getMessage());
+        assertEquals(List.of("Connecting..."), log);
+        assertFalse(worker.isAlive());
+    }
+
+    @Test
+    void hungCommandIsKilledAtItsDeadline() {
+        worker.setTimeouts(Duration.ofSeconds(30), Duration.ofMillis(300));
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class,
+                () -> worker.write("hang", "460800", image, image.partitions(), log::add)));
+        assertTrue(e.getMessage().contains("no output"), e.getMessage());
+        assertFalse(worker.isAlive());
+    }
+}
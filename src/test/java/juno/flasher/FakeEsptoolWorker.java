@@ -0,0 +1,88 @@
+package juno.flasher;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Stands in for esptool_worker.py: speaks the same JSON-lines protocol without a board.
+ * The port name picks the behaviour of write/verify:
+ * "fail" answers ok=false, "chatty" mixes in stray output, "hang" never answers and
+ * "die" exits mid-command. Any other port connects once and then reuses its "stub".
+ */
+public class FakeEsptoolWorker {
+
+    private static final Gson GSON = new Gson();
+
+    public static void main(String[] args) throws Exception {
+        Set<String> loaders = new HashSet<>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) continue;
+            JsonObject cmd = GSON.fromJson(line, JsonObject.class);
+            String name = cmd.get("cmd").getAsString();
+            if (name.equals("quit")) break;
+            int id = cmd.get("id").getAsInt();
+            String port = cmd.has("port") ? cmd.get("port").getAsString() : null;
+
+            switch (name) {
+                case "ping" -> ok(id);
+                case "reset" -> {
+                    if (loaders.remove(port)) log(id, "hard reset " + port);
+                    ok(id);
+                }
+                case "write", "verify" -> {
+                    switch (port) {
+                        case "fail" -> error(id, "Failed to connect to ESP32");
+                        case "hang" -> Thread.sleep(Long.MAX_VALUE);
+                        case "die" -> {
+                            log(id, "Connecting...");
+                            System.exit(3);
+                        }
+                        case "chatty" -> {
+                            System.out.println("WARNING: stray library output");
+                            System.out.println("{\"id\":" + (id + 100) + ",\"log\":\"someone else's\"}");
+                            System.out.println("{\"id\":\"x\",\"ok\":true}");
+                            log(id, "Writing at 0x00010000");
+                            System.out.println("[1, 2]");
+                            log(id, "Hash of data verified.");
+                            ok(id);
+                        }
+                        default -> {
+                            log(id, loaders.add(port) ? "stub uploaded to " + port : "stub reused on " + port);
+                            log(id, name + " " + cmd.getAsJsonArray("files").size() + " file(s)");
+                            ok(id);
+                        }
+                    }
+                }
+                default -> error(id, "unknown command: " + name);
+            }
+            System.out.flush();
+        }
+    }
+
+    private static void log(int id, String text) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("id", id);
+        msg.addProperty("log", text);
+        System.out.println(GSON.toJson(msg));
+    }
+
+    private static void ok(int id) {
+        System.out.println("{\"id\":" + id + ",\"ok\":true}");
+    }
+
+    private static void error(int id, String message) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("id", id);
+        msg.addProperty("ok", false);
+        msg.addProperty("error", message);
+        System.out.println(GSON.toJson(msg));
+    }
+}
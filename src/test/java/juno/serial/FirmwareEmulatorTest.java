@@ -0,0 +1,118 @@
+package juno.serial;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(10)
+class FirmwareEmulatorTest {
+
+    private JunoSerial serial;
+
+    @AfterEach
+    void tearDown() {
+        if (serial != null) serial.disconnect();
+    }
+
+    @Test
+    void handshakeThenEcho() {
+        serial = JunoSerial.connectAndHandshake(FirmwareEmulator.startOnPipe());
+        assertNotNull(serial);
+
+        serial.send("ping");
+        assertEquals(List.of("juno_read", "ping", "hello world", "new world", "juno_read"), lines(5));
+    }
+
+    @Test
+    void flashAfterTheHandshakeIsAnsweredAgain() {
+        serial = JunoSerial.connectAndHandshake(FirmwareEmulator.startOnPipe());
+
+        serial.send("flash");
+        assertEquals(List.of("juno_read", "thunder", "hello world", "new world"), lines(4));
+    }
+
+    @Test
+    void echoOfTheLongestLineThatFitsKeepsItsNewline() {
+        serial = JunoSerial.connectAndHandshake(FirmwareEmulator.startOnPipe());
+        String message = "x".repeat(510);
+
+        serial.send(message);
+        assertEquals(List.of("juno_read", message, "hello world"), lines(3));
+    }
+
+    @Test
+    void longerEchoRunsIntoTheNextLineLikeSnprintf() {
+        serial = JunoSerial.connectAndHandshake(FirmwareEmulator.startOnPipe());
+
+        // juno_serial_read keeps 511 bytes and snprintf keeps all of them, without the '\n'
+        serial.send("y".repeat(600));
+        assertEquals(List.of("juno_read", "y".repeat(511) + "hello world", "new world"), lines(3));
+    }
+
+    @Test
+    void taggedRequestIsAnsweredWithItsIdAndEndsThePrompt() {
+        serial = JunoSerial.connectAndHandshake(FirmwareEmulator.startOnPipe());
+
+        serial.send("@7 ping");
+        serial.send("@8 ");
+        assertEquals(List.of("juno_read", "@7 ping", "hello world", "new world", "@8", "hello world", "new world"),
+                lines(7));
+    }
+
+    @Test
+    void splitUtf8SequenceIsDecodedWhole() throws Exception {
+        PipeTransport.Pair pair = PipeTransport.pair();
+        try (SerialLineReader reader = new SerialLineReader(pair.host().input(), "test", 16)) {
+            OutputStream device = pair.device().output();
+            byte[] bytes = "grüße\n".getBytes(StandardCharsets.UTF_8);
+            for (byte b : bytes) {
+                device.write(b); // every byte in its own read
+                device.flush();
+                Thread.sleep(1);
+            }
+            assertEquals("grüße", reader.readLine(Duration.ofSeconds(5)));
+        }
+    }
+
+    @Test
+    void closedPipeEndsTheReader() throws Exception {
+        PipeTransport.Pair pair = PipeTransport.pair();
+        try (SerialLineReader reader = new SerialLineReader(pair.host().input(), "test", 16)) {
+            pair.device().output().write("last line without newline".getBytes(StandardCharsets.UTF_8));
+            pair.device().close();
+
+            assertEquals("last line without newline", reader.readLine(Duration.ofSeconds(5)));
+            assertNull(reader.readLine(Duration.ofSeconds(5)));
+        }
+    }
+
+    @Test
+    void pipeWriterBlocksUntilTheReaderCatchesUp() throws Exception {
+        PipeTransport.Pair pair = PipeTransport.pair(8);
+        Thread writer = Thread.ofVirtual().start(() -> {
+            try {
+                pair.host().output().write(new byte[32]);
+            } catch (IOException ignored) {
+            }
+        });
+        byte[] received = pair.device().input().readNBytes(32);
+        assertEquals(32, received.length);
+        assertTrue(writer.join(Duration.ofSeconds(5)));
+    }
+
+    private List<String> lines(int count) {
+        return IntStream.range(0, count).mapToObj(i -> serial.readLine()).toList();
+    }
+}
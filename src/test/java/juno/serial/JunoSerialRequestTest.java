@@ -0,0 +1,172 @@
+package juno.serial;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(10)
+class JunoSerialRequestTest {
+
+    private JunoSerial serial;
+    private BufferedReader device;
+    private OutputStream deviceOut;
+
+    @BeforeEach
+    void setUp() {
+        PipeTransport.Pair pair = PipeTransport.pair();
+        serial = new JunoSerial();
+        assertTrue(serial.connect(pair.host()));
+        device = new BufferedReader(new InputStreamReader(pair.device().input(), StandardCharsets.UTF_8));
+        deviceOut = pair.device().output();
+    }
+
+    @AfterEach
+    void tearDown() {
+        serial.disconnect();
+    }
+
+    @Test
+    void replyCompletesTheRequestAndUntaggedOutputStaysReadable() throws Exception {
+        CompletableFuture<String> reply = serial.request("ping");
+        assertEquals("@0 ping", device.readLine());
+
+        reply("log line\n@0 pong\n");
+        assertEquals("pong", reply.get(5, TimeUnit.SECONDS));
+        assertEquals("log line", serial.readLine());
+    }
+
+    @Test
+    void unknownIdIsPassedThrough() throws Exception {
+        CompletableFuture<String> reply = serial.request("ping");
+        assertEquals("@0 ping", device.readLine());
+
+        reply("@99 stray\n@0 pong\n");
+        assertEquals("pong", reply.get(5, TimeUnit.SECONDS));
+        assertEquals("@99 stray", serial.readLine());
+    }
+
+    @Test
+    void timeoutFailsTheRequestAndFreesItsSlot() throws Exception {
+        serial.setRequestWindow(1);
+        CompletableFuture<String> first = serial.request("slow", Duration.ofMillis(100));
+        assertEquals("@0 slow", device.readLine());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+
+        CompletableFuture<String> second = serial.request("next");
+        assertEquals("@1 next", device.readLine());
+        // The late reply is nobody's any more
+        reply("@0 late\n@1 ok\n");
+        assertEquals("ok", second.get(5, TimeUnit.SECONDS));
+        assertEquals("@0 late", serial.readLine());
+    }
+
+    @Test
+    void countWindowHoldsBackRequestsUntilAReply() throws Exception {
+        serial.setRequestWindow(2);
+        CompletableFuture<String> a = serial.request("a");
+        CompletableFuture<String> b = serial.request("b");
+        CompletableFuture<String> c = serial.request("c");
+        assertEquals("@0 a", device.readLine());
+        assertEquals("@1 b", device.readLine());
+        Thread.sleep(100);
+        assertFalse(device.ready());
+
+        reply("@0 A\n");
+        assertEquals("@2 c", device.readLine());
+        reply("@1 B\n@2 C\n");
+        assertEquals("A", a.get(5, TimeUnit.SECONDS));
+        assertEquals("B", b.get(5, TimeUnit.SECONDS));
+        assertEquals("C", c.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void byteWindowHoldsBackRequestsThatWouldOverflowTheDevice() throws Exception {
+        // "@0 " + 20 bytes + "\n" = 24 bytes, so only one such request fits in 40
+        serial.setRequestWindowBytes(40);
+        String command = "x".repeat(20);
+        CompletableFuture<String> first = serial.request(command);
+        CompletableFuture<String> second = serial.request(command);
+        assertEquals("@0 " + command, device.readLine());
+        Thread.sleep(100);
+        assertFalse(device.ready());
+
+        reply("@0 done\n");
+        assertEquals("@1 " + command, device.readLine());
+        reply("@1 done\n");
+        assertEquals("done", first.get(5, TimeUnit.SECONDS));
+        assertEquals("done", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void requestLargerThanTheByteWindowIsStillSent() throws Exception {
+        serial.setRequestWindowBytes(8);
+        CompletableFuture<String> reply = serial.request("longer than eight bytes");
+        assertEquals("@0 longer than eight bytes", device.readLine());
+
+        reply("@0 ok\n");
+        assertEquals("ok", reply.get(5, TimeUnit.SECONDS));
+    }
+
+    // Repeated: disconnect() races the sender taking the waiting request
+    @RepeatedTest(20)
+    void disconnectFailsOpenRequests() throws Exception {
+        serial.setRequestWindow(1);
+        CompletableFuture<String> sent = serial.request("a");
+        CompletableFuture<String> waiting = serial.request("b");
+        assertEquals("@0 a", device.readLine());
+
+        serial.disconnect();
+        for (CompletableFuture<String> f : List.of(sent, waiting)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void pipelinedRequestsToTheEmulatorAreAnsweredInOrder() throws Exception {
+        serial.disconnect();
+        serial = JunoSerial.connectAndHandshake(FirmwareEmulator.startOnPipe());
+        Thread drain = Thread.ofVirtual().start(() -> {
+            while (serial.readLine() != null && !Thread.currentThread().isInterrupted()) {
+                // prompts and the emulator's untagged output
+            }
+        });
+        try {
+            CompletableFuture<?>[] replies = new CompletableFuture<?>[200];
+            for (int i = 0; i < replies.length; i++) {
+                String message = "m" + i;
+                replies[i] = serial.request(message).thenAccept(r -> assertEquals(message, r));
+            }
+            CompletableFuture.allOf(replies).get(5, TimeUnit.SECONDS);
+        } finally {
+            drain.interrupt();
+        }
+    }
+
+    private void reply(String text) throws IOException {
+        deviceOut.write(text.getBytes(StandardCharsets.UTF_8));
+        deviceOut.flush();
+    }
+}